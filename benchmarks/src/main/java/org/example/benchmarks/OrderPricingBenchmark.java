@@ -0,0 +1,163 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.Model.StockReservationDTO;
+import org.example.orderservice.cache.ParallelProductLoader;
+import org.example.orderservice.cache.ProductCache;
+import org.example.orderservice.entities.Order;
+import org.example.orderservice.entities.OrderItems;
+import org.example.orderservice.feign.ProductRestClients;
+import org.example.orderservice.outbox.OutboxEventRepository;
+import org.example.orderservice.outbox.OutboxWriter;
+import org.example.orderservice.repo.OrderRepository;
+import org.example.orderservice.reservation.ReservationConfirmationRepository;
+import org.example.orderservice.reservation.ReservationConfirmer;
+import org.example.orderservice.service.OrderService;
+import org.example.orderservice.summary.OrderSummaryRepository;
+import org.example.orderservice.summary.OrderSummaryWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * OrderService.createOrder without the network and the database: warm product cache, stubbed
+ * produit-service (reservation, confirmation after commit) and repositories that return what they are given.
+ * What is left is the in-process work of a checkout: stock check, pricing loop, outbox payload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPricingBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private OrderService orderService;
+
+    @Setup
+    public void setUp() {
+        Map<Long, ProductDTO> catalog = LongStream.rangeClosed(1, items)
+                .mapToObj(OrderPricingBenchmark::product)
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        ProductRestClients productRestClients = new StubProductRestClients(catalog);
+        ProductCache productCache = new ProductCache(
+                new ParallelProductLoader(productRestClients, 25, 8, Duration.ofSeconds(3), new SyncTaskExecutor()),
+                true, Duration.ofHours(1), Duration.ofHours(1), 10_000);
+        productCache.getProducts(catalog.keySet());
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        orderService = new OrderService(echoRepository(OrderRepository.class), productCache, productRestClients,
+                null, new OutboxWriter(echoRepository(OutboxEventRepository.class), objectMapper),
+                new OrderSummaryWriter(echoRepository(OrderSummaryRepository.class), echoRepository(EntityManager.class)),
+                echoRepository(OrderSummaryRepository.class),
+                new ReservationConfirmer(echoRepository(ReservationConfirmationRepository.class), productRestClients,
+                        null, new SimpleMeterRegistry(), false, 50, Duration.ofSeconds(5), Duration.ofMinutes(1)),
+                new SimpleMeterRegistry(), 500);
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        Order order = new Order();
+        List<OrderItems> orderItems = new ArrayList<>(items);
+        for (long productId = 1; productId <= items; productId++) {
+            orderItems.add(OrderItems.builder().productId(productId).quantity(2).build());
+        }
+        order.setOrderItemsList(orderItems);
+        // No transaction manager here: its commit callbacks (reservation confirmed) are run by hand
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Order saved = orderService.createOrder(order, "3f1c2a9e-5b7d-4e8a-9c61-0d2f4b6a8e13");
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                    TransactionSynchronization.STATUS_COMMITTED);
+            return saved;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static ProductDTO product(long id) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName("product " + id);
+        product.setPrice(9.99);
+        product.setQuantity(1_000_000);
+        return product;
+    }
+
+    // save/saveAndFlush return their argument, persist and deleteAfterCommit do nothing,
+    // nothing else is called on the checkout path
+    @SuppressWarnings("unchecked")
+    private static <T> T echoRepository(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "save", "saveAndFlush":
+                    return args[0];
+                case "deleteAfterCommit":
+                    return 1;
+                case "persist":
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private record StubProductRestClients(Map<Long, ProductDTO> catalog) implements ProductRestClients {
+
+        @Override
+        public ProductDTO findProductById(Long id) {
+            return catalog.get(id);
+        }
+
+        @Override
+        public List<ProductDTO> findProductsByIds(Collection<Long> ids) {
+            return ids.stream().map(catalog::get).toList();
+        }
+
+        @Override
+        public StockReservationDTO reserveStock(StockReservationDTO reservation) {
+            reservation.setId(UUID.randomUUID().toString());
+            reservation.setStatus("PENDING");
+            return reservation;
+        }
+
+        @Override
+        public StockReservationDTO confirmReservation(String id) {
+            return new StockReservationDTO();
+        }
+
+        @Override
+        public StockReservationDTO releaseReservation(String id) {
+            return new StockReservationDTO();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.orderservice.entities.Order;
+import org.example.orderservice.entities.OrderItems;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON body of GET /api/orders/{id}: an Order and its items, with the ObjectMapper defaults Spring Boot uses
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private ObjectMapper objectMapper;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        order = new Order();
+        order.setOrderId(42);
+        order.setCustomerId("3f1c2a9e-5b7d-4e8a-9c61-0d2f4b6a8e13");
+        order.setStatut("CREATED");
+        order.setDate_commande(new Date());
+        List<OrderItems> orderItems = new ArrayList<>();
+        double total = 0;
+        for (long productId = 1; productId <= items; productId++) {
+            OrderItems item = OrderItems.builder().id(productId).productId(productId).quantity(2).price(9.99).order(order).build();
+            orderItems.add(item);
+            total += item.getPrice() * item.getQuantity();
+        }
+        order.setOrderItemsList(orderItems);
+        order.setMontant_total(total);
+    }
+
+    @Benchmark
+    public byte[] serializeOrder() throws Exception {
+        return objectMapper.writeValueAsBytes(order);
+    }
+}
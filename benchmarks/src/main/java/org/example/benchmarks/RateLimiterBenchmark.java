@@ -0,0 +1,55 @@
+package org.example.benchmarks;
+
+import org.example.gatewayservice.ratelimit.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost added by the gateway rate limiter to every proxied request: one
+ * {@link TokenBucketRateLimiter#tryAcquire} with the real clock. The limit is high enough that every
+ * call is granted, which is the common case. {@code callers} keys are spread over the threads;
+ * {@code perCaller} has each thread hit the same key (contended bucket), {@code manyCallers} walks them.
+ * Scaling: java -jar target/benchmarks.jar RateLimiterBenchmark -t 1,4,8
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    @Param({"1000"})
+    public int callers;
+
+    private final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter();
+    private final TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(1_000_000_000, 1_000_000_000);
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        keys = new String[callers];
+        for (int i = 0; i < callers; i++) {
+            keys[i] = "order-service|sub:user-" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    public long perCaller() {
+        return rateLimiter.tryAcquire(keys[0], limit);
+    }
+
+    @Benchmark
+    public long manyCallers(Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = index + 1 == keys.length ? 0 : index + 1;
+        return rateLimiter.tryAcquire(keys[index], limit);
+    }
+}
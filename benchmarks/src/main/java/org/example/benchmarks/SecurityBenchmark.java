@@ -0,0 +1,117 @@
+package org.example.benchmarks;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.example.security.CachingJwtDecoder;
+import org.example.security.KeycloakAuthoritiesConverter;
+import org.example.security.KeycloakSecurityAutoConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Per-request security cost: RSA verification of a Keycloak-like token, then realm roles -> authorities.
+// Allocations per call: java -jar target/benchmarks.jar SecurityBenchmark -prof gc (gc.alloc.rate.norm)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityBenchmark {
+    private String token;
+    private Jwt jwt;
+    private JwtDecoder nimbusDecoder;
+    private JwtDecoder cachingDecoder;
+    private JwtAuthenticationConverter legacyConverter;
+    private JwtAuthenticationConverter keycloakConverter;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer("http://localhost:9090/realms/mini-project")
+                .subject("3f1c2a9e-5b7d-4e8a-9c61-0d2f4b6a8e13")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .claim("scope", "openid profile email")
+                .claim("preferred_username", "client1")
+                .claim("realm_access", Map.of("roles", List.of("CLIENT", "ADMIN", "offline_access", "uma_authorization")))
+                .build();
+        SignedJWT signed = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("bench").build(), claims);
+        signed.sign(new RSASSASigner(keyPair.getPrivate()));
+        token = signed.serialize();
+
+        nimbusDecoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+        cachingDecoder = new CachingJwtDecoder(nimbusDecoder, 10_000);
+        jwt = nimbusDecoder.decode(token);
+        legacyConverter = legacyJwtAuthConverter();
+        keycloakConverter = new KeycloakSecurityAutoConfiguration()
+                .jwtAuthConverter(new KeycloakAuthoritiesConverter(10_000, Duration.ofMinutes(10)));
+    }
+
+    // The mapping both SecurityConfig used to declare, kept as the baseline: new scopes converter,
+    // roles stream and SimpleGrantedAuthority objects on every request
+    @SuppressWarnings("unchecked")
+    private static JwtAuthenticationConverter legacyJwtAuthConverter() {
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
+            Collection<GrantedAuthority> authorities = new JwtGrantedAuthoritiesConverter().convert(jwt);
+            Map<String, Object> realmAccess = jwt.getClaim("realm_access");
+            if (realmAccess != null && realmAccess.containsKey("roles")) {
+                List<String> roles = (List<String>) realmAccess.get("roles");
+                authorities.addAll(roles.stream()
+                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                        .collect(Collectors.toList()));
+            }
+            return authorities;
+        });
+        return converter;
+    }
+
+    @Benchmark
+    public Jwt nimbusDecode() {
+        return nimbusDecoder.decode(token);
+    }
+
+    // Same token again: what order-service pays once CachingJwtDecoder has seen it
+    @Benchmark
+    public Jwt cachingDecode() {
+        return cachingDecoder.decode(token);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken legacyAuthConverter() {
+        return legacyConverter.convert(jwt);
+    }
+
+    // security-spring-boot-starter, as used by order-service and produit-service
+    @Benchmark
+    public AbstractAuthenticationToken keycloakAuthConverter() {
+        return keycloakConverter.convert(jwt);
+    }
+}
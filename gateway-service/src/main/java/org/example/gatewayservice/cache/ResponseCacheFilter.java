@@ -0,0 +1,324 @@
+package org.example.gatewayservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.gatewayservice.security.InternalIdentitySigner;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory cache of the product GET responses, so hot catalog reads stop at the gateway.
+ * <p>
+ * Entries are keyed by URL and by the caller's realm roles (responses depend on the role only)
+ * and live for {@code gateway.response-cache.ttl}. A successful catalog mutation going through the
+ * gateway (product create, update or delete, bulk sync) clears the cache; stock reservations do not.
+ * Stock moves made by order-service call produit-service directly and never reach this cache, so
+ * the {@code quantity} of a cached product may be up to one TTL stale. The backend's ETag is kept, so a client sending a matching
+ * If-None-Match gets a 304 straight from the gateway. Identical requests arriving while a miss
+ * is in flight wait for its response (or its error) instead of calling produit-service again.
+ * A body larger than {@code gateway.response-cache.max-body-size} streams through uncached.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheFilter.class);
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final List<String> CACHED_HEADERS =
+            List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, "X-Next-Cursor");
+
+    private final boolean enabled;
+    private final int maxBodySize;
+    private final List<PathPattern> cachedPaths;
+    private final PathPattern productsPath;
+    private final PathPattern productPath;
+    private final PathPattern bulkPath;
+    private final Cache<String, CachedResponse> cache;
+    // Bumped by every write: a read started before the write must not store its (stale) response
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentHashMap<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public ResponseCacheFilter(@Value("${gateway.response-cache.enabled:true}") boolean enabled,
+                               @Value("${gateway.response-cache.ttl:10s}") Duration ttl,
+                               @Value("${gateway.response-cache.maximum-size:1000}") long maximumSize,
+                               @Value("${gateway.response-cache.max-body-size:1048576}") int maxBodySize,
+                               @Value("${gateway.response-cache.paths:/api/products,/api/products/{id}}") List<String> paths) {
+        this.enabled = enabled;
+        this.maxBodySize = maxBodySize;
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        this.cachedPaths = paths.stream().map(parser::parse).collect(Collectors.toList());
+        this.productsPath = parser.parse("/api/products");
+        this.productPath = parser.parse("/api/products/{id}");
+        this.bulkPath = parser.parse("/api/products/bulk");
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "gateway.response");
+    }
+
+    @Override
+    public int getOrder() {
+        // Must decorate the response before NettyWriteResponseFilter writes it
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        if (request.getMethod() != HttpMethod.GET) {
+            return isProductWrite(request) ? invalidateAfterSuccess(exchange, chain) : chain.filter(exchange);
+        }
+        if (!isCached(request)) {
+            return chain.filter(exchange);
+        }
+
+        // Only authenticated JWT callers are cached (the key needs their roles)
+        return exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(principal -> cacheKey(request, (JwtAuthenticationToken) principal))
+                .defaultIfEmpty("")
+                .flatMap(key -> key.isEmpty() ? chain.filter(exchange) : serve(exchange, chain, key));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, GatewayFilterChain chain, String key) {
+        String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return write(exchange.getResponse(), cached, ifNoneMatch, "HIT");
+        }
+
+        // Single flight: identical concurrent misses wait for the first one instead of calling the backend
+        Sinks.One<CachedResponse> flight = Sinks.one();
+        Sinks.One<CachedResponse> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            // Without a shareable response (not JSON, leader cancelled) the request goes upstream itself
+            return leader.asMono()
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(response -> response.isPresent()
+                            ? write(exchange.getResponse(), response.get(), ifNoneMatch, "COALESCED")
+                            : chain.filter(exchange));
+        }
+        return fetch(exchange, chain, key, ifNoneMatch, flight)
+                .doOnError(flight::tryEmitError)
+                .doFinally(signal -> {
+                    inFlight.remove(key, flight);
+                    flight.tryEmitEmpty();
+                });
+    }
+
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, String key, String ifNoneMatch,
+                             Sinks.One<CachedResponse> flight) {
+        // Ask for the full body (to fill the cache), the client's If-None-Match is applied here
+        long startGeneration = generation.get();
+        ServerHttpRequest unconditional = exchange.getRequest().mutate()
+                .headers(headers -> headers.remove(HttpHeaders.IF_NONE_MATCH))
+                .build();
+        ServerHttpResponseDecorator recording = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!isJson(getHeaders())) {
+                    return super.writeWith(body);
+                }
+                // Held up to max-body-size: a body that ends within it is cached, a larger one streams through.
+                // Not DataBufferUtils.join(body, maxBodySize), which drops what it read once over the limit
+                AtomicLong size = new AtomicLong();
+                return Flux.from(body)
+                        .cast(DataBuffer.class)
+                        .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBodySize)
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                        .switchOnFirst((first, parts) -> {
+                            if (first.isOnError()) {
+                                return parts.then();
+                            }
+                            if (first.hasValue() && byteCount(first.get()) > maxBodySize) {
+                                return streamUncached(parts);
+                            }
+                            return parts.next().defaultIfEmpty(List.of()).flatMap(buffers -> store(read(buffers)));
+                        })
+                        .then();
+            }
+
+            private Mono<Void> store(byte[] bytes) {
+                // Errors (404, 403...) are shared with the waiters but never cached
+                CachedResponse fresh = new CachedResponse(getStatusCode(), copyCachedHeaders(getHeaders()), bytes);
+                flight.tryEmitValue(fresh);
+                if (fresh.isOk() && generation.get() == startGeneration) {
+                    cache.put(key, fresh);
+                }
+                getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+                if (fresh.isOk() && fresh.matches(ifNoneMatch)) {
+                    return notModified();
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            }
+
+            // Too large to cache: the waiters call the backend themselves
+            private Mono<Void> streamUncached(Flux<List<DataBuffer>> parts) {
+                flight.tryEmitEmpty();
+                getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+                HttpStatusCode status = getStatusCode();
+                if ((status == null || status.value() == HttpStatus.OK.value())
+                        && etagMatches(getHeaders().getETag(), ifNoneMatch)) {
+                    return parts.doOnNext(buffers -> buffers.forEach(DataBufferUtils::release))
+                            .then(Mono.defer(this::notModified));
+                }
+                return super.writeWith(parts.map(bufferFactory()::join));
+            }
+
+            private Mono<Void> notModified() {
+                setStatusCode(HttpStatus.NOT_MODIFIED);
+                getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                return setComplete();
+            }
+        };
+        return chain.filter(exchange.mutate().request(unconditional).response(recording).build());
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, CachedResponse cached, String ifNoneMatch,
+                                    String cacheStatus) {
+        response.getHeaders().set(CACHE_STATUS_HEADER, cacheStatus);
+        if (cached.isOk() && cached.matches(ifNoneMatch)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().setETag(cached.headers().getETag());
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        response.getHeaders().addAll(cached.headers());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Mono<Void> invalidateAfterSuccess(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange).then(Mono.fromRunnable(() -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            if (status == null || status.is2xxSuccessful()) {
+                invalidateAll();
+                log.debug("Product response cache cleared after {} {}", exchange.getRequest().getMethod(),
+                        exchange.getRequest().getPath());
+            }
+        }));
+    }
+
+    private boolean isCached(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        return cachedPaths.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+    // Catalog mutations only: POST /api/products/batch is a read, reservations only move stock
+    private boolean isProductWrite(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        HttpMethod method = request.getMethod();
+        if (method == HttpMethod.POST) {
+            return productsPath.matches(path) || bulkPath.matches(path);
+        }
+        return (method == HttpMethod.PUT || method == HttpMethod.PATCH || method == HttpMethod.DELETE)
+                && productPath.matches(path);
+    }
+
+    private static String cacheKey(ServerHttpRequest request, JwtAuthenticationToken authentication) {
+        String roles = InternalIdentitySigner.realmRoles(authentication.getToken()).stream()
+                .map(String::valueOf)
+                .sorted()
+                .collect(Collectors.joining(","));
+        return request.getURI().getRawPath() + "?" + Objects.toString(request.getURI().getRawQuery(), "") + "|" + roles;
+    }
+
+    private static boolean isJson(HttpHeaders headers) {
+        MediaType contentType = headers.getContentType();
+        return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(contentType);
+    }
+
+    private static int byteCount(List<DataBuffer> buffers) {
+        return buffers.stream().mapToInt(DataBuffer::readableByteCount).sum();
+    }
+
+    private static byte[] read(List<DataBuffer> buffers) {
+        byte[] bytes = new byte[byteCount(buffers)];
+        int offset = 0;
+        for (DataBuffer buffer : buffers) {
+            int length = buffer.readableByteCount();
+            buffer.read(bytes, offset, length);
+            offset += length;
+            DataBufferUtils.release(buffer);
+        }
+        return bytes;
+    }
+
+    private static boolean etagMatches(String etag, String ifNoneMatch) {
+        return etag != null && ifNoneMatch != null
+                && (ifNoneMatch.equals("*") || List.of(ifNoneMatch.split("\\s*,\\s*")).contains(etag));
+    }
+
+    private static HttpHeaders copyCachedHeaders(HttpHeaders source) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : CACHED_HEADERS) {
+            List<String> values = source.get(name);
+            if (values != null) {
+                headers.put(name, values);
+            }
+        }
+        return headers;
+    }
+
+    private record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        CachedResponse {
+            status = status != null ? status : HttpStatus.OK;
+        }
+
+        boolean isOk() {
+            return status.value() == HttpStatus.OK.value();
+        }
+
+        boolean matches(String ifNoneMatch) {
+            return etagMatches(headers.getETag(), ifNoneMatch);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.gatewayservice.proxy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+import java.util.List;
+
+// Gateway -> backends: per route connection pools, HTTP/2 without TLS (h2c)
+@Configuration
+public class BackendHttpClientConfig {
+
+    // Replaces the gateway's own factory (@ConditionalOnMissingBean)
+    @Bean
+    public HttpClientFactory gatewayHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                                      List<HttpClientCustomizer> customizers,
+                                                      HttpClientSslConfigurer sslConfigurer,
+                                                      GatewayProperties gatewayProperties) {
+        return new BackendHttpClientFactory(properties, serverProperties, sslConfigurer, customizers, gatewayProperties);
+    }
+
+    // Prior knowledge: the backends (server.http2.enabled) take HTTP/2 on their plain port, so
+    // concurrent requests share a few multiplexed connections instead of one connection each.
+    // Read at startup rather than as a bean condition, which the AOT build would fix
+    @Bean
+    public HttpClientCustomizer h2cHttpClientCustomizer(@Value("${gateway.backends.h2c:false}") boolean h2c) {
+        return httpClient -> h2c ? httpClient.protocol(HttpProtocol.H2C) : httpClient;
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.gatewayservice.proxy;
+
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.AddressUtils;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP client of the routes, whose connection pool ({@code spring.cloud.gateway.httpclient.pool.*})
+ * can be tuned per route with the route metadata, applied to the route's backend (host and port):
+ * <ul>
+ *     <li>{@value #MAX_CONNECTIONS}: connections to the backend (HTTP/2 connections with h2c,
+ *     each one carrying many requests at once)</li>
+ *     <li>{@value #PENDING_ACQUIRE_TIMEOUT}: ms a request waits for a connection before failing</li>
+ * </ul>
+ * A route without these keys, or whose backend is shared with another route, uses the global pool settings.
+ */
+public class BackendHttpClientFactory extends HttpClientFactory {
+    static final String MAX_CONNECTIONS = "max-connections";
+    static final String PENDING_ACQUIRE_TIMEOUT = "pending-acquire-timeout";
+
+    private final GatewayProperties gatewayProperties;
+
+    public BackendHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                    HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                    GatewayProperties gatewayProperties) {
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.gatewayProperties = gatewayProperties;
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        HttpClientProperties.Pool pool = properties.getPool();
+        List<RouteDefinition> tunedRoutes = gatewayProperties.getRoutes().stream()
+                .filter(route -> route.getMetadata().containsKey(MAX_CONNECTIONS)
+                        || route.getMetadata().containsKey(PENDING_ACQUIRE_TIMEOUT))
+                .toList();
+        if (tunedRoutes.isEmpty() || pool.getType() != HttpClientProperties.Pool.PoolType.FIXED) {
+            return super.buildConnectionProvider(properties);
+        }
+
+        ConnectionProvider.Builder builder = configure(ConnectionProvider.builder(pool.getName()), pool,
+                pool.getMaxConnections(), Duration.ofMillis(pool.getAcquireTimeout()));
+        for (RouteDefinition route : tunedRoutes) {
+            Map<String, Object> metadata = route.getMetadata();
+            int maxConnections = metadata.containsKey(MAX_CONNECTIONS)
+                    ? Integer.parseInt(metadata.get(MAX_CONNECTIONS).toString()) : pool.getMaxConnections();
+            Duration acquireTimeout = Duration.ofMillis(metadata.containsKey(PENDING_ACQUIRE_TIMEOUT)
+                    ? Long.parseLong(metadata.get(PENDING_ACQUIRE_TIMEOUT).toString()) : pool.getAcquireTimeout());
+            // Same address as Reactor Netty builds from the request URI, so the pool is found again
+            URI uri = route.getUri();
+            int port = uri.getPort() != -1 ? uri.getPort() : "https".equals(uri.getScheme()) ? 443 : 80;
+            builder.forRemoteHost(AddressUtils.createUnresolved(uri.getHost(), port),
+                    spec -> configure(spec, pool, maxConnections, acquireTimeout));
+        }
+        return builder.build();
+    }
+
+    // What HttpClientFactory does for a fixed pool, connections and wait time aside
+    private static <T extends ConnectionProvider.ConnectionPoolSpec<T>> T configure(
+            T spec, HttpClientProperties.Pool pool, int maxConnections, Duration acquireTimeout) {
+        spec.maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(acquireTimeout)
+                .evictInBackground(pool.getEvictionInterval())
+                .metrics(pool.isMetrics());
+        if (pool.getMaxIdleTime() != null) {
+            spec.maxIdleTime(pool.getMaxIdleTime());
+        }
+        if (pool.getMaxLifeTime() != null) {
+            spec.maxLifeTime(pool.getMaxLifeTime());
+        }
+        return spec;
+    }
+}
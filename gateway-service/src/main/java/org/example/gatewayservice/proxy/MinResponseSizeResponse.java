@@ -0,0 +1,59 @@
+package org.example.gatewayservice.proxy;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gives {@code server.compression.min-response-size} a length to compare with. Backend responses
+ * arrive chunked, without a Content-Length, and the server compresses every response whose length
+ * it does not know. A compressible response without one is held until it reaches the threshold: a
+ * response that ends before is written with its Content-Length and goes out plain, a larger one
+ * streams on (at most min-response-size held) and is compressed. Responses that already have a
+ * length, or whose type is not compressed (event streams...), are not touched.
+ */
+class MinResponseSizeResponse extends ServerHttpResponseDecorator {
+    private final int minResponseSize;
+    private final List<MediaType> mimeTypes;
+
+    MinResponseSizeResponse(ServerHttpResponse delegate, int minResponseSize, List<MediaType> mimeTypes) {
+        super(delegate);
+        this.minResponseSize = minResponseSize;
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (getHeaders().getContentLength() >= 0 || !compressible(getHeaders().getContentType())) {
+            return super.writeWith(body);
+        }
+        AtomicLong size = new AtomicLong();
+        AtomicBoolean first = new AtomicBoolean(true);
+        Flux<DataBuffer> held = Flux.from(body)
+                .cast(DataBuffer.class)
+                .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) >= minResponseSize)
+                .map(buffers -> {
+                    DataBuffer joined = bufferFactory().join(buffers);
+                    // A first part under the threshold is the whole body: the stream completed before it
+                    if (first.getAndSet(false) && joined.readableByteCount() < minResponseSize) {
+                        getHeaders().setContentLength(joined.readableByteCount());
+                    }
+                    return joined;
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        return super.writeWith(held);
+    }
+
+    private boolean compressible(MediaType contentType) {
+        return contentType != null && mimeTypes.stream().anyMatch(type -> type.isCompatibleWith(contentType));
+    }
+}
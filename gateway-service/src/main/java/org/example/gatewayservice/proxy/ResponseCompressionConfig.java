@@ -0,0 +1,41 @@
+package org.example.gatewayservice.proxy;
+
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.WebFilter;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Client responses are compressed by the server (server.compression.*), which does not say so in Vary
+// and only applies min-response-size to responses with a Content-Length.
+// The switch is read at startup, not as a bean condition the AOT build would fix
+@Configuration
+public class ResponseCompressionConfig {
+
+    // Every response, gateway cache hits included: shared caches must keep gzip, br and plain apart.
+    // Compressible responses without a length are held until min-response-size (see MinResponseSizeResponse)
+    @Bean
+    public WebFilter responseCompressionFilter(ServerProperties serverProperties) {
+        Compression compression = serverProperties.getCompression();
+        boolean enabled = compression.getEnabled();
+        int minResponseSize = (int) compression.getMinResponseSize().toBytes();
+        List<MediaType> mimeTypes = Arrays.stream(compression.getMimeTypes()).map(MediaType::parseMediaType).toList();
+        return (exchange, chain) -> {
+            if (!enabled) {
+                return chain.filter(exchange);
+            }
+            exchange.getResponse().getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (minResponseSize <= 0 || !exchange.getRequest().getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange.mutate()
+                    .response(new MinResponseSizeResponse(exchange.getResponse(), minResponseSize, mimeTypes))
+                    .build());
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.gatewayservice.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route filter limiting each caller (JWT subject, or client IP when unauthenticated) to
+ * {@code replenishRate} requests per second with bursts up to {@code burstCapacity}.
+ * Configured per route, e.g. {@code spring.cloud.gateway.routes[1].filters[0]=LocalRateLimit=20, 40}.
+ * Refused requests get a 429 with Retry-After.
+ */
+@Component
+public class LocalRateLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<LocalRateLimitGatewayFilterFactory.Config> {
+
+    private final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter();
+    private final MeterRegistry meterRegistry;
+
+    public LocalRateLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("replenishRate", "burstCapacity");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(config.getReplenishRate(),
+                config.getBurstCapacity());
+        return (exchange, chain) -> callerKey(exchange).flatMap(caller -> {
+            // Buckets are per route: a burst on /api/orders does not eat the /api/products budget
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "";
+            long waitNanos = rateLimiter.tryAcquire(routeId + "|" + caller, limit);
+            if (waitNanos == 0) {
+                return chain.filter(exchange);
+            }
+            // Tagged by route only: callers are unbounded
+            Counter.builder("gateway.ratelimit.rejected")
+                    .tag("routeId", routeId)
+                    .register(meterRegistry)
+                    .increment();
+            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+            return exchange.getResponse().setComplete();
+        });
+    }
+
+    private static Mono<String> callerKey(ServerWebExchange exchange) {
+        return exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(principal -> "sub:" + ((JwtAuthenticationToken) principal).getToken().getSubject())
+                .switchIfEmpty(Mono.fromSupplier(() -> "ip:" + clientIp(exchange)));
+    }
+
+    private static String clientIp(ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress()
+                : remoteAddress.getHostString();
+    }
+
+    public static class Config {
+        private double replenishRate = 10;
+        private int burstCapacity = 20;
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.gatewayservice.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory token buckets, one per key, without locks and without Redis.
+ * <p>
+ * A bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the "virtual scheduling" form of a token bucket): taking a token pushes that time by one
+ * refill interval, and the request is refused if this would put it more than
+ * {@code burstCapacity} intervals in the future. Buckets are spread over shards so idle ones
+ * can be dropped a shard at a time without scanning everything on the request path; the shards
+ * are swept in turn, whichever keys the requests hash to.
+ */
+public class TokenBucketRateLimiter {
+    private static final int SHARDS = 16;
+    // An idle sweep of the next shard is attempted on average once every this many acquisitions
+    private static final int SWEEP_EVERY = 1024;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    // Only written by a sweep, not on every request
+    private final AtomicInteger nextSweep = new AtomicInteger();
+    private final LongSupplier nanoClock;
+
+    public TokenBucketRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key}.
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds to wait for the next token
+     */
+    public long tryAcquire(String key, Limit limit) {
+        Shard shard = shards[shardOf(key)];
+        long now = nanoClock.getAsLong();
+        AtomicLong fullAt = shard.buckets.get(key);
+        if (fullAt == null) {
+            // computeIfAbsent may lock the bin: only taken for a new caller
+            fullAt = shard.buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        maybeSweep(now);
+
+        long interval = limit.intervalNanos();
+        long tolerance = limit.toleranceNanos();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long ahead = next - now;
+            if (ahead > tolerance) {
+                return ahead - tolerance;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Round robin over all the shards, not the caller's: a shard no active key hashes to is swept too
+    private void maybeSweep(long now) {
+        // Sampled rather than counted, so the request path writes to no shared counter
+        if (ThreadLocalRandom.current().nextInt(SWEEP_EVERY) != 0) {
+            return;
+        }
+        shards[(nextSweep.getAndIncrement() & 0x7fffffff) % SHARDS].sweep(now);
+    }
+
+    static int shardOf(String key) {
+        return (key.hashCode() & 0x7fffffff) % SHARDS;
+    }
+
+    int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.buckets.size();
+        }
+        return size;
+    }
+
+    private static final class Shard {
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        void sweep(long now) {
+            // A full bucket holds no state worth keeping: dropping it is the same as recreating it.
+            // A request racing with the removal may lose its token, which only errs on the permissive side.
+            buckets.values().removeIf(fullAt -> fullAt.get() <= now);
+        }
+    }
+
+    /**
+     * @param replenishRate tokens added per second
+     * @param burstCapacity maximum tokens in the bucket, i.e. the allowed burst
+     */
+    public record Limit(double replenishRate, int burstCapacity) {
+        public Limit {
+            if (replenishRate <= 0 || burstCapacity < 1) {
+                throw new IllegalArgumentException("replenishRate must be > 0 and burstCapacity >= 1");
+            }
+        }
+
+        long intervalNanos() {
+            return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / replenishRate));
+        }
+
+        long toleranceNanos() {
+            return intervalNanos() * burstCapacity;
+        }
+    }
+}
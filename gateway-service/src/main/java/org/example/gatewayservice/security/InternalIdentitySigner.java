@@ -0,0 +1,73 @@
+package org.example.gatewayservice.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the X-Internal-Identity header from the JWT the gateway just verified:
+ * {@code base64url(claims JSON) + "." + base64url(HMAC-SHA256)}. The backends check the HMAC
+ * (cheap) instead of the Keycloak RSA signature (InternalIdentityFilter of security-spring-boot-starter).
+ */
+@Component
+public class InternalIdentitySigner {
+    public static final String HEADER = "X-Internal-Identity";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec key;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public InternalIdentitySigner(@Value("${security.internal-identity.enabled:false}") boolean enabled,
+                                  @Value("${security.internal-identity.secret:}") String secret) {
+        this.enabled = enabled;
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (enabled && secretBytes.length < 32) {
+            throw new IllegalArgumentException("security.internal-identity.secret must be at least 32 bytes");
+        }
+        this.key = enabled ? new SecretKeySpec(secretBytes, HMAC_ALGORITHM) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String sign(Jwt jwt) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", jwt.getSubject());
+        claims.put("preferred_username", jwt.getClaimAsString("preferred_username"));
+        claims.put("roles", realmRoles(jwt));
+        claims.put("scope", jwt.getClaimAsString("scope"));
+        // Never valid longer than the Keycloak token it comes from
+        claims.put("exp", jwt.getExpiresAt() != null ? jwt.getExpiresAt().getEpochSecond() : 0);
+
+        try {
+            String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(claims));
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+            return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (JsonProcessingException | GeneralSecurityException e) {
+            throw new IllegalStateException("Internal identity could not be signed", e);
+        }
+    }
+
+    public static List<?> realmRoles(Jwt jwt) {
+        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+        if (realmAccess != null && realmAccess.get("roles") instanceof List<?> roles) {
+            return roles;
+        }
+        return List.of();
+    }
+}
@@ -1,21 +1,31 @@
 package org.example.gatewayservice.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 
+import java.net.InetSocketAddress;
 import java.util.List;
 
 @Configuration
 @EnableWebFluxSecurity // <--- 1. Changement important : Flux Security
 public class SecurityConfig {
 
+    // Actuator port (management.server.port), -1 when actuator shares the edge port
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
     @Bean
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
         http
@@ -23,6 +33,11 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // <--- 2. CORS Reactive
                 .authorizeExchange(exchanges -> exchanges // <--- 3. authorizeExchange (pas HttpRequests)
                         .pathMatchers("/v3/api-docs/**", "/swagger-ui/**").permitAll()
+                        // Actuator port: open, it is not published. Edge port: the probes only, no metrics
+                        .matchers(onManagementPort()).permitAll()
+                        .pathMatchers("/actuator/health/**", "/livez", "/readyz").permitAll()
+                        // Stock reservations are between order-service and product-service only
+                        .pathMatchers("/api/products/reservations/**").denyAll()
                         .pathMatchers("/api/products/**").authenticated() // Exemple
                         .anyExchange().authenticated()
                 )
@@ -31,12 +46,23 @@ public class SecurityConfig {
         return http.build();
     }
 
+    private ServerWebExchangeMatcher onManagementPort() {
+        return exchange -> {
+            InetSocketAddress local = exchange.getRequest().getLocalAddress();
+            return managementPort > 0 && managementPort != serverPort
+                    && local != null && local.getPort() == managementPort
+                    ? ServerWebExchangeMatcher.MatchResult.match()
+                    : ServerWebExchangeMatcher.MatchResult.notMatch();
+        };
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowedOrigins(List.of("http://localhost:3000")); // Pas de slash à la fin !
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(List.of("*")); // Autoriser tous les headers (Authorization inclus)
+        config.setExposedHeaders(List.of("X-Next-Cursor")); // Curseur de pagination des listes
         config.setAllowCredentials(true);
 
         // <--- 4. UrlBasedCorsConfigurationSource du package "reactive"
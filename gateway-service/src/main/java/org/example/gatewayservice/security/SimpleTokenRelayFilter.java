@@ -3,6 +3,7 @@ package org.example.gatewayservice.security;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
@@ -10,18 +11,33 @@ import reactor.core.publisher.Mono;
 @Component
 public class SimpleTokenRelayFilter implements GlobalFilter {
 
+    private final InternalIdentitySigner identitySigner;
+
+    public SimpleTokenRelayFilter(InternalIdentitySigner identitySigner) {
+        this.identitySigner = identitySigner;
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
 
+        // An identity header coming from the client is never trusted
+        ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+                .headers(headers -> headers.remove(InternalIdentitySigner.HEADER));
         if (authHeader != null) {
-            ServerHttpRequest request = exchange.getRequest().mutate()
-                    .header("Authorization", authHeader)
-                    .build();
+            request.header("Authorization", authHeader);
+        }
 
-            return chain.filter(exchange.mutate().request(request).build());
+        if (!identitySigner.isEnabled()) {
+            return chain.filter(exchange.mutate().request(request.build()).build());
         }
 
-        return chain.filter(exchange);
+        // Identity verified here once, signed with the shared HMAC key for the backends
+        return exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(principal -> request.header(InternalIdentitySigner.HEADER,
+                        identitySigner.sign(((JwtAuthenticationToken) principal).getToken())))
+                .defaultIfEmpty(request)
+                .flatMap(builder -> chain.filter(exchange.mutate().request(builder.build()).build()));
     }
-}
\ No newline at end of file
+}
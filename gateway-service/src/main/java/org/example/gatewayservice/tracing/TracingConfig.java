@@ -0,0 +1,42 @@
+package org.example.gatewayservice.tracing;
+
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.example.tracing.RouteSampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.MicrometerTracingAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import java.util.List;
+
+/**
+ * Traces of the shop start here: the proxied requests carry the W3C traceparent header to the
+ * backends, which follow the sampling decision taken here. {@link RouteSampler} and the span
+ * exporters come from the shared starter ({@code TracingAutoConfiguration}); the gateway replaces
+ * its sampler and, being reactive, its request handler.
+ */
+@Configuration
+public class TracingConfig {
+
+    // Clients are not trusted with the sampling flag (it would force tracing of all their requests):
+    // a client traceparent keeps its trace id but is sampled per route like any other request
+    @Bean
+    public Sampler routeSampler(@Value("${management.tracing.sampling.probability:0.1}") double defaultProbability,
+                                @Value("${tracing.sampling.routes:}") List<String> routes) {
+        Sampler routeSampler = new RouteSampler(defaultProbability, routes);
+        return Sampler.parentBasedBuilder(routeSampler)
+                .setRemoteParentSampled(routeSampler)
+                .setRemoteParentNotSampled(routeSampler)
+                .build();
+    }
+
+    // Replaces Boot's handler of incoming requests, at the same place in the handler chain
+    @Bean
+    @Order(MicrometerTracingAutoConfiguration.RECEIVER_TRACING_OBSERVATION_HANDLER_ORDER)
+    public RequestPathTracingHandler requestPathTracingHandler(Tracer tracer, Propagator propagator) {
+        return new RequestPathTracingHandler(tracer, propagator);
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.gatewayservice.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(true, Duration.ofMinutes(1), 100, 1024 * 1024,
+            List.of("/api/products", "/api/products/{id}"));
+    private final AtomicInteger backendCalls = new AtomicInteger();
+    private HttpStatus backendStatus = HttpStatus.OK;
+    private Mono<Void> backendDelay = Mono.empty();
+
+    private final GatewayFilterChain backend = exchange -> backendDelay.then(Mono.defer(() -> {
+        backendCalls.incrementAndGet();
+        exchange.getResponse().setStatusCode(backendStatus);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        exchange.getResponse().getHeaders().setETag("\"1-0\"");
+        byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+    }));
+
+    @Test
+    void secondReadIsServedFromTheCacheAndMatchingEtagGets304() {
+        filter.filter(get("/api/products/1", "USER"), backend).block();
+
+        ServerWebExchange hit = get("/api/products/1", "USER");
+        filter.filter(hit, backend).block();
+        assertThat(hit.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(((MockServerHttpResponse) hit.getResponse()).getBodyAsString().block()).isEqualTo("{\"id\":1}");
+
+        ServerWebExchange conditional = exchange(MockServerHttpRequest.get("/api/products/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1-0\""), "USER");
+        filter.filter(conditional, backend).block();
+        assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        assertThat(backendCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void entriesAreSeparatedByRoleAndClearedByAProductWrite() {
+        filter.filter(get("/api/products/1", "USER"), backend).block();
+        filter.filter(get("/api/products/1", "ADMIN"), backend).block();
+        assertThat(backendCalls.get()).isEqualTo(2);
+
+        filter.filter(exchange(MockServerHttpRequest.put("/api/products/1"), "ADMIN"), backend).block();
+        filter.filter(get("/api/products/1", "USER"), backend).block();
+        assertThat(backendCalls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void onlyCatalogMutationsClearTheCache() {
+        filter.filter(get("/api/products/1", "USER"), backend).block();
+        filter.filter(exchange(MockServerHttpRequest.post("/api/products/reservations"), "USER"), backend).block();
+        filter.filter(exchange(MockServerHttpRequest.post("/api/products/reservations/r-1/confirm"), "USER"), backend).block();
+        filter.filter(exchange(MockServerHttpRequest.post("/api/products/batch"), "USER"), backend).block();
+        assertThat(cacheStatusOfRead()).isEqualTo("HIT");
+
+        filter.filter(exchange(MockServerHttpRequest.post("/api/products/bulk"), "ADMIN"), backend).block();
+        assertThat(cacheStatusOfRead()).isEqualTo("MISS");
+
+        filter.filter(exchange(MockServerHttpRequest.delete("/api/products/1"), "ADMIN"), backend).block();
+        assertThat(cacheStatusOfRead()).isEqualTo("MISS");
+    }
+
+    @Test
+    void concurrentMissesShareOneBackendCallIncludingErrors() throws Exception {
+        Sinks.Empty<Void> release = Sinks.empty();
+        backendDelay = release.asMono();
+        backendStatus = HttpStatus.NOT_FOUND;
+
+        ServerWebExchange first = get("/api/products/1", "USER");
+        ServerWebExchange second = get("/api/products/1", "USER");
+        CompletableFuture<Void> both = Mono.when(filter.filter(first, backend), filter.filter(second, backend)).toFuture();
+        release.tryEmitEmpty();
+        both.get(5, TimeUnit.SECONDS);
+
+        assertThat(backendCalls.get()).isEqualTo(1);
+        assertThat(first.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(second.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("COALESCED");
+
+        // A 404 is not cached
+        backendDelay = Mono.empty();
+        filter.filter(get("/api/products/1", "USER"), backend).block();
+        assertThat(backendCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void backendFailureIsPropagatedToWaiters() throws Exception {
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain failing = exchange -> release.asMono()
+                .then(Mono.defer(() -> {
+                    backendCalls.incrementAndGet();
+                    return Mono.error(new IllegalStateException("connection refused"));
+                }));
+
+        Mono<Void> leader = filter.filter(get("/api/products/1", "USER"), failing)
+                .onErrorResume(IllegalStateException.class, e -> Mono.empty());
+        Mono<Void> waiter = filter.filter(get("/api/products/1", "USER"), failing);
+        AtomicReference<Throwable> waiterError = new AtomicReference<>();
+        CompletableFuture<Void> both = Mono.when(leader, waiter.doOnError(waiterError::set).onErrorResume(e -> Mono.empty()))
+                .toFuture();
+        release.tryEmitEmpty();
+        both.get(5, TimeUnit.SECONDS);
+
+        assertThat(waiterError.get()).hasMessage("connection refused");
+        assertThat(backendCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void bodiesOverTheLimitStreamThroughUncached() throws Exception {
+        ResponseCacheFilter smallCache = new ResponseCacheFilter(true, Duration.ofMinutes(1), 100, 16,
+                List.of("/api/products"));
+        Sinks.Empty<Void> tail = Sinks.empty();
+        GatewayFilterChain chunked = exchange -> Mono.defer(() -> {
+            backendCalls.incrementAndGet();
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            Flux<String> chunks = "1".equals(exchange.getRequest().getQueryParams().getFirst("size"))
+                    ? Flux.just("[{\"id\":1}", "]")
+                    : Flux.concat(Flux.just("[{\"id\":1},", "{\"id\":2},"), tail.asMono().thenMany(Flux.just("{\"id\":3}]")));
+            return exchange.getResponse().writeWith(chunks
+                    .map(chunk -> exchange.getResponse().bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+        });
+
+        for (int i = 0; i < 2; i++) {
+            ServerWebExchange large = get("/api/products?size=3", "USER");
+            CompletableFuture<Void> written = smallCache.filter(large, chunked).toFuture();
+            if (i == 0) {
+                // Over the limit while the backend is still sending: already on its way to the client
+                assertThat(((MockServerHttpResponse) large.getResponse()).getBody().next()
+                        .map(buffer -> buffer.toString(StandardCharsets.UTF_8)).block(Duration.ofSeconds(5)))
+                        .isEqualTo("[{\"id\":1},{\"id\":2},");
+                tail.tryEmitEmpty();
+            }
+            written.get(5, TimeUnit.SECONDS);
+            assertThat(((MockServerHttpResponse) large.getResponse()).getBodyAsString().block())
+                    .isEqualTo("[{\"id\":1},{\"id\":2},{\"id\":3}]");
+            assertThat(large.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        }
+        assertThat(backendCalls.get()).isEqualTo(2);
+
+        // Chunked as well, but within the limit: cached
+        for (int i = 0; i < 2; i++) {
+            ServerWebExchange small = get("/api/products?size=1", "USER");
+            smallCache.filter(small, chunked).block();
+            assertThat(((MockServerHttpResponse) small.getResponse()).getBodyAsString().block()).isEqualTo("[{\"id\":1}]");
+        }
+        assertThat(backendCalls.get()).isEqualTo(3);
+    }
+
+    private String cacheStatusOfRead() {
+        ServerWebExchange read = get("/api/products/1", "USER");
+        filter.filter(read, backend).block();
+        return read.getResponse().getHeaders().getFirst("X-Cache");
+    }
+
+    private static ServerWebExchange get(String path, String role) {
+        return exchange(MockServerHttpRequest.get(path), role);
+    }
+
+    private static ServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, String role) {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("user-" + role)
+                .claim("realm_access", Map.of("roles", List.of(role)))
+                .build();
+        return MockServerWebExchange.from(request).mutate()
+                .principal(Mono.just(new JwtAuthenticationToken(jwt)))
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.gatewayservice.proxy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.AddressUtils;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackendHttpClientFactoryTest {
+
+    private final HttpClientProperties properties = new HttpClientProperties();
+    private final GatewayProperties gatewayProperties = new GatewayProperties();
+
+    private ConnectionProvider connectionProvider() {
+        ServerProperties serverProperties = new ServerProperties();
+        return new BackendHttpClientFactory(properties, serverProperties,
+                new HttpClientSslConfigurer(properties.getSsl(), serverProperties), List.of(), gatewayProperties)
+                .buildConnectionProvider(properties);
+    }
+
+    private static RouteDefinition route(String uri, Map<String, Object> metadata) {
+        RouteDefinition route = new RouteDefinition();
+        route.setUri(URI.create(uri));
+        route.setMetadata(metadata);
+        return route;
+    }
+
+    @Test
+    void routeMetadataSizesThePoolOfItsBackend() {
+        properties.getPool().setType(HttpClientProperties.Pool.PoolType.FIXED);
+        properties.getPool().setMaxConnections(100);
+        gatewayProperties.setRoutes(List.of(
+                route("http://product-service:8081", Map.of("max-connections", 80)),
+                route("http://order-service:8082", Map.of("max-connections", "20", "pending-acquire-timeout", 2000)),
+                route("http://legacy", Map.of())));
+
+        ConnectionProvider provider = connectionProvider();
+
+        assertThat(provider.maxConnections()).isEqualTo(100);
+        assertThat(provider.maxConnectionsPerHost())
+                .containsEntry(AddressUtils.createUnresolved("product-service", 8081), 80)
+                .containsEntry(AddressUtils.createUnresolved("order-service", 8082), 20)
+                .doesNotContainKey(AddressUtils.createUnresolved("legacy", 80));
+    }
+
+    @Test
+    void withoutRouteSettingsThePoolIsTheGatewayOne() {
+        properties.getPool().setType(HttpClientProperties.Pool.PoolType.FIXED);
+        properties.getPool().setMaxConnections(100);
+        gatewayProperties.setRoutes(List.of(route("http://product-service:8081", Map.of())));
+
+        ConnectionProvider provider = connectionProvider();
+
+        assertThat(provider.maxConnections()).isEqualTo(100);
+        assertThat(provider.maxConnectionsPerHost()).isEmpty();
+    }
+}
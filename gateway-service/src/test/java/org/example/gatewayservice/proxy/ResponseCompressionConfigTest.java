@@ -0,0 +1,87 @@
+package org.example.gatewayservice.proxy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCompressionConfigTest {
+
+    private final WebFilter filter = filter(true);
+
+    private static WebFilter filter(boolean enabled) {
+        ServerProperties serverProperties = new ServerProperties();
+        serverProperties.getCompression().setEnabled(enabled);
+        serverProperties.getCompression().setMimeTypes(new String[]{"application/json", "text/plain"});
+        serverProperties.getCompression().setMinResponseSize(DataSize.ofKilobytes(2));
+        return new ResponseCompressionConfig().responseCompressionFilter(serverProperties);
+    }
+
+    private static MockServerWebExchange exchange(String acceptEncoding) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/products");
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    // Backend response written in chunks, without a Content-Length
+    private static void serve(WebFilter filter, MockServerWebExchange exchange, MediaType contentType, String... chunks) {
+        filter.filter(exchange, filtered -> {
+            filtered.getResponse().getHeaders().setContentType(contentType);
+            return filtered.getResponse().writeWith(Flux.fromArray(chunks)
+                    .map(chunk -> filtered.getResponse().bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+        }).block();
+    }
+
+    private static String body(ServerWebExchange exchange) {
+        return ((MockServerHttpResponse) exchange.getResponse()).getBodyAsString().block();
+    }
+
+    @Test
+    void smallChunkedJsonGetsItsLengthSoItIsNotCompressed() {
+        MockServerWebExchange exchange = exchange("gzip, br");
+        serve(filter, exchange, MediaType.APPLICATION_JSON, "{\"id\":1,", "\"name\":\"a\"}");
+
+        assertThat(body(exchange)).isEqualTo("{\"id\":1,\"name\":\"a\"}");
+        assertThat(exchange.getResponse().getHeaders().getContentLength()).isEqualTo(19);
+        assertThat(exchange.getResponse().getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void largeChunkedJsonStreamsOnWithoutALength() {
+        MockServerWebExchange exchange = exchange("gzip");
+        String chunk = "x".repeat(1500);
+        serve(filter, exchange, MediaType.APPLICATION_JSON, chunk, chunk, chunk);
+
+        assertThat(body(exchange)).isEqualTo(chunk.repeat(3));
+        assertThat(exchange.getResponse().getHeaders().getContentLength()).isEqualTo(-1);
+    }
+
+    @Test
+    void typesThatAreNotCompressedAndClientsWithoutAcceptEncodingAreLeftAlone() {
+        MockServerWebExchange events = exchange("gzip");
+        serve(filter, events, MediaType.TEXT_EVENT_STREAM, "data: 1\n\n");
+        assertThat(events.getResponse().getHeaders().getContentLength()).isEqualTo(-1);
+
+        MockServerWebExchange identity = exchange(null);
+        serve(filter, identity, MediaType.APPLICATION_JSON, "{}");
+        assertThat(identity.getResponse().getHeaders().getContentLength()).isEqualTo(-1);
+
+        MockServerWebExchange disabled = exchange("gzip");
+        serve(filter(false), disabled, MediaType.APPLICATION_JSON, "{}");
+        assertThat(disabled.getResponse().getHeaders().getContentLength()).isEqualTo(-1);
+        assertThat(disabled.getResponse().getHeaders().getVary()).isEmpty();
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.gatewayservice.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(1000));
+    private final TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(clock::get);
+
+    @Test
+    void allowsTheBurstThenRefillsAtTheReplenishRate() {
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(2, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("alice", limit)).isZero();
+        }
+        long wait = rateLimiter.tryAcquire("alice", limit);
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        clock.addAndGet(wait);
+        assertThat(rateLimiter.tryAcquire("alice", limit)).isZero();
+        assertThat(rateLimiter.tryAcquire("alice", limit)).isPositive();
+    }
+
+    @Test
+    void bucketsAreIndependentPerKey() {
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(1, 1);
+
+        assertThat(rateLimiter.tryAcquire("order-service|sub:alice", limit)).isZero();
+        assertThat(rateLimiter.tryAcquire("order-service|sub:alice", limit)).isPositive();
+        assertThat(rateLimiter.tryAcquire("order-service|sub:bob", limit)).isZero();
+        assertThat(rateLimiter.tryAcquire("product-service|sub:alice", limit)).isZero();
+    }
+
+    @Test
+    void neverGrantsMoreThanTheBurstUnderContention() throws InterruptedException {
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(1, 50);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 1000; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (rateLimiter.tryAcquire("alice", limit) == 0) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // The clock does not move: exactly the burst goes through
+        assertThat(granted.get()).isEqualTo(50);
+    }
+
+    @Test
+    void idleBucketsAreEventuallyDropped() {
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(100, 10);
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.tryAcquire("user-" + i, limit);
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        for (int i = 0; i < 100_000; i++) {
+            rateLimiter.tryAcquire("active", limit);
+        }
+
+        assertThat(rateLimiter.size()).isLessThan(1000);
+    }
+
+    @Test
+    void idleBucketsOfAShardNoActiveCallerHashesToAreDroppedToo() {
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(100, 10);
+        int coldShard = (TokenBucketRateLimiter.shardOf("active") + 1) % 16;
+        List<String> idle = IntStream.range(0, 100_000).mapToObj(i -> "user-" + i)
+                .filter(key -> TokenBucketRateLimiter.shardOf(key) == coldShard)
+                .limit(100)
+                .toList();
+        idle.forEach(key -> rateLimiter.tryAcquire(key, limit));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        for (int i = 0; i < 200_000; i++) {
+            rateLimiter.tryAcquire("active", limit);
+        }
+
+        // Only the active bucket is left, it is not full
+        assertThat(rateLimiter.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.gatewayservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+// Metrics are scraped on the actuator port only; the edge port serves the probes and nothing else of actuator
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+class ActuatorExposureTest {
+
+    private static final int MANAGEMENT_PORT = freePort();
+
+    @DynamicPropertySource
+    static void managementPort(DynamicPropertyRegistry registry) {
+        registry.add("management.server.port", () -> MANAGEMENT_PORT);
+    }
+
+    @LocalServerPort
+    private int edgePort;
+
+    @Test
+    void prometheusIsOnlyServedOnTheActuatorPort() {
+        client(edgePort).get().uri("/actuator/prometheus").exchange().expectStatus().isUnauthorized();
+        client(MANAGEMENT_PORT).get().uri("/actuator/prometheus").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void probesAreOpenOnBothPorts() {
+        client(edgePort).get().uri("/readyz").exchange().expectStatus().isOk();
+        client(edgePort).get().uri("/livez").exchange().expectStatus().isOk();
+        client(MANAGEMENT_PORT).get().uri("/actuator/health/readiness").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void theActuatorPortDoesNotOpenTheApi() {
+        client(edgePort).get().uri("/api/orders").exchange().expectStatus().isUnauthorized();
+    }
+
+    private static WebTestClient client(int port) {
+        return WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
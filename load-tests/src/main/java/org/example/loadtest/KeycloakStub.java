@@ -0,0 +1,140 @@
+package org.example.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stand-in for ms-keycloak: realm {@code mini-project} with its JWKS, discovery document and a
+ * password-grant token endpoint. Tokens look like Keycloak's (sub, preferred_username,
+ * realm_access.roles) and are signed with an RSA key generated at startup.
+ */
+public class KeycloakStub implements AutoCloseable {
+    public static final String REALM_PATH = "/realms/mini-project";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final RSAKey key;
+    private final Duration tokenLifetime;
+
+    private KeycloakStub(HttpServer server, ExecutorService executor, RSAKey key, Duration tokenLifetime) {
+        this.server = server;
+        this.executor = executor;
+        this.key = key;
+        this.tokenLifetime = tokenLifetime;
+    }
+
+    public static KeycloakStub start(Duration tokenLifetime) throws IOException, JOSEException {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("load-test").generate();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        server.setExecutor(executor);
+        KeycloakStub stub = new KeycloakStub(server, executor, key, tokenLifetime);
+
+        server.createContext(REALM_PATH + "/protocol/openid-connect/certs",
+                exchange -> respond(exchange, 200, new JWKSet(key.toPublicJWK()).toString()));
+        server.createContext(REALM_PATH + "/.well-known/openid-configuration",
+                exchange -> respond(exchange, 200, stub.discovery()));
+        server.createContext(REALM_PATH + "/protocol/openid-connect/token", stub::token);
+        server.start();
+        return stub;
+    }
+
+    public String issuer() {
+        return "http://localhost:" + server.getAddress().getPort() + REALM_PATH;
+    }
+
+    public String jwkSetUri() {
+        return issuer() + "/protocol/openid-connect/certs";
+    }
+
+    // Keycloak-like access token; the subject is stable for a given username
+    public String accessToken(String username, List<String> roles) {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer())
+                .subject(UUID.nameUUIDFromBytes(username.getBytes(StandardCharsets.UTF_8)).toString())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(tokenLifetime)))
+                .claim("typ", "Bearer")
+                .claim("azp", "react-client")
+                .claim("scope", "openid profile email")
+                .claim("preferred_username", username)
+                .claim("realm_access", Map.of("roles", roles))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        try {
+            jwt.sign(new RSASSASigner(key));
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Token cannot be signed", e);
+        }
+        return jwt.serialize();
+    }
+
+    private String discovery() {
+        return "{\"issuer\":\"" + issuer() + "\",\"jwks_uri\":\"" + jwkSetUri() + "\",\"token_endpoint\":\""
+                + issuer() + "/protocol/openid-connect/token\",\"id_token_signing_alg_values_supported\":[\"RS256\"]}";
+    }
+
+    // grant_type=password: any password is accepted, usernames starting with "admin" get the ADMIN role
+    private void token(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{\"error\":\"invalid_request\"}");
+            return;
+        }
+        Map<String, String> form = new HashMap<>();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        String username = form.get("username");
+        if (username == null || username.isBlank()) {
+            respond(exchange, 400, "{\"error\":\"invalid_grant\"}");
+            return;
+        }
+        List<String> roles = username.startsWith("admin") ? List.of("ADMIN") : List.of("CLIENT");
+        respond(exchange, 200, "{\"access_token\":\"" + accessToken(username, roles)
+                + "\",\"token_type\":\"Bearer\",\"expires_in\":" + tokenLifetime.toSeconds() + "}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
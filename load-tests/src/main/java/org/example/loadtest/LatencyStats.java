@@ -0,0 +1,53 @@
+package org.example.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies (microseconds, 3 significant digits, up to 1 minute), outcomes and response sizes of one endpoint
+class LatencyStats {
+    private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder bodyBytes = new LongAdder();
+
+    // bodyBytes as received, compressed when the server compressed the response
+    void record(long latencyNanos, int status, long bodyBytes) {
+        histogram.recordValue(Math.min(histogram.getHighestTrackableValue(), TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        this.bodyBytes.add(bodyBytes);
+        outcomes.computeIfAbsent(String.valueOf(status), key -> new LongAdder()).increment();
+        if (status >= 400) {
+            errors.increment();
+        }
+    }
+
+    void recordFailure(long latencyNanos, Throwable error) {
+        histogram.recordValue(Math.min(histogram.getHighestTrackableValue(), TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        outcomes.computeIfAbsent(error.getClass().getSimpleName(), key -> new LongAdder()).increment();
+        errors.increment();
+    }
+
+    // Not sent: max-in-flight reached, the stack does not keep up with the target rate
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    LoadReport.EndpointReport report(String endpoint, double seconds) {
+        Map<String, Long> byOutcome = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> byOutcome.put(outcome, count.sum()));
+        long requests = histogram.getTotalCount();
+        return new LoadReport.EndpointReport(endpoint, requests, errors.sum(), dropped.sum(), byOutcome,
+                requests / seconds, millis(50), millis(90), millis(99), histogram.getMaxValue() / 1000.0,
+                requests == 0 ? 0 : bodyBytes.sum() / requests);
+    }
+
+    private double millis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: requests are sent on a fixed schedule (target rps) whatever the response times,
+ * and each latency is measured from the time the request was due, not from when it was actually
+ * sent, so a stalled stack shows up in the percentiles instead of lowering the rate. At most
+ * {@code maxInFlight} requests are outstanding; beyond that requests are counted as dropped.
+ */
+public class LoadGenerator {
+    private final HttpClient client;
+    private final int maxInFlight;
+
+    public LoadGenerator(HttpClient client, int maxInFlight) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // Warmup requests are sent the same way but left out of the report
+    public LoadReport run(ShopWorkload workload, double rps, Duration warmup, Duration duration)
+            throws InterruptedException {
+        Map<String, LatencyStats> stats = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rps));
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (long sent = 0; ; sent++) {
+            long due = start + sent * interval;
+            if (due - end >= 0) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            ShopWorkload.LoadRequest request = workload.next(random);
+            LatencyStats endpoint = due - measureFrom >= 0
+                    ? stats.computeIfAbsent(request.endpoint(), key -> new LatencyStats())
+                    : null;
+            if (!inFlight.tryAcquire()) {
+                if (endpoint != null) {
+                    endpoint.recordDropped();
+                }
+                continue;
+            }
+            client.sendAsync(request.request(), LoadGenerator::countBodyBytes)
+                    .whenComplete((response, error) -> {
+                        long latency = System.nanoTime() - due;
+                        inFlight.release();
+                        if (endpoint == null) {
+                            return;
+                        }
+                        if (error != null) {
+                            endpoint.recordFailure(latency, error);
+                        } else {
+                            endpoint.record(latency, response.statusCode(), response.body());
+                        }
+                    });
+        }
+
+        // Requests still running are part of the measure
+        if (!inFlight.tryAcquire(maxInFlight, 60, TimeUnit.SECONDS)) {
+            System.err.println("Load test: some requests did not complete within 60 s");
+        }
+        double seconds = duration.toNanos() / 1e9;
+        List<LoadReport.EndpointReport> endpoints = new ArrayList<>();
+        new TreeMap<>(stats).forEach((name, endpoint) -> endpoints.add(endpoint.report(name, seconds)));
+        return new LoadReport(rps, seconds, endpoints);
+    }
+
+    // Body size as received (no decompression), without keeping the body
+    private static HttpResponse.BodySubscriber<Long> countBodyBytes(HttpResponse.ResponseInfo response) {
+        AtomicLong bytes = new AtomicLong();
+        return HttpResponse.BodySubscribers.fromSubscriber(new Flow.Subscriber<List<ByteBuffer>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> buffers) {
+                buffers.forEach(buffer -> bytes.addAndGet(buffer.remaining()));
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        }, subscriber -> bytes.get());
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// Result of a run: one line per endpoint (latencies in ms, measured from the scheduled send time,
+// average response body in bytes as sent on the wire)
+public record LoadReport(double targetRps, double seconds, List<EndpointReport> endpoints) {
+
+    public record EndpointReport(String endpoint, long requests, long errors, long dropped,
+                                 Map<String, Long> outcomes, double throughput,
+                                 double p50, double p90, double p99, double max, long bytes) {
+    }
+
+    @JsonProperty
+    public long requests() {
+        return endpoints.stream().mapToLong(EndpointReport::requests).sum();
+    }
+
+    @JsonProperty
+    public long errors() {
+        return endpoints.stream().mapToLong(EndpointReport::errors).sum();
+    }
+
+    @JsonProperty
+    public long dropped() {
+        return endpoints.stream().mapToLong(EndpointReport::dropped).sum();
+    }
+
+    @JsonProperty
+    public double throughput() {
+        return requests() / seconds;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n%-28s %9s %7s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "dropped", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "bytes");
+        for (EndpointReport endpoint : endpoints) {
+            out.printf("%-28s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9d%n", endpoint.endpoint(), endpoint.requests(),
+                    endpoint.errors(), endpoint.dropped(), endpoint.throughput(), endpoint.p50(), endpoint.p90(),
+                    endpoint.p99(), endpoint.max(), endpoint.bytes());
+        }
+        out.printf("%-28s %9d %7d %7d %9.1f   (target %.1f req/s over %.0f s)%n", "total", requests(), errors(),
+                dropped(), throughput(), targetRps, seconds);
+        endpoints.stream()
+                .filter(endpoint -> endpoint.errors() > 0)
+                .forEach(endpoint -> out.printf("errors of %s: %s%n", endpoint.endpoint(), endpoint.outcomes()));
+    }
+
+    public void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Starts the Keycloak stand-in and the three services, loads a catalog, runs the shop workload at
+ * the target rate and prints p50/p90/p99 and throughput per endpoint (also written as JSON).
+ * <pre>
+ * java -jar target/load-tests.jar --rps=200 --warmup=15s --duration=60s --mix=browse:70,checkout:25,admin:5
+ * </pre>
+ * Options: rps, warmup, duration, clients, products, max-in-flight, mix, accept-encoding, report. Any other
+ * {@code --key=value} containing a dot is passed to the three services as a property override
+ * (e.g. {@code --security.internal-identity.enabled=true --security.internal-identity.secret=s3cr3t}).
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            String key = arg.substring(2, separator);
+            (key.contains(".") ? overrides : options).put(key, arg.substring(separator + 1));
+        }
+
+        double rps = Double.parseDouble(options.getOrDefault("rps", "100"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "200"));
+        int products = Integer.parseInt(options.getOrDefault("products", "500"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "1000"));
+        Map<String, Integer> mix = options.containsKey("mix") ? parseMix(options.get("mix")) : ShopWorkload.DEFAULT_MIX;
+        String acceptEncoding = options.getOrDefault("accept-encoding", ShopWorkload.DEFAULT_ACCEPT_ENCODING);
+        Path reportFile = Path.of(options.getOrDefault("report", "target/load-test-report.json"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        try (KeycloakStub keycloak = KeycloakStub.start(warmup.plus(duration).plusHours(1));
+             ServiceCluster cluster = ServiceCluster.start(keycloak, overrides)) {
+            System.out.println("Gateway on " + cluster.gatewayUrl() + ", order-service on " + cluster.orderServiceUrl()
+                    + ", produit-service on " + cluster.produitServiceUrl());
+            ShopWorkload workload = ShopWorkload.prepare(client, cluster.gatewayUrl(), keycloak, products, clients, mix,
+                    acceptEncoding);
+
+            System.out.printf("Load test: %.0f req/s, %d s warmup, %d s measured, mix %s, Accept-Encoding %s%n", rps,
+                    warmup.toSeconds(), duration.toSeconds(), mix, acceptEncoding);
+            LoadReport report = new LoadGenerator(client, maxInFlight).run(workload, rps, warmup, duration);
+            report.print(System.out);
+            report.write(reportFile);
+            System.out.println("Report written to " + reportFile.toAbsolutePath());
+        } finally {
+            executor.shutdownNow();
+        }
+        // Reactor Netty and JDBC pools may leave non-daemon threads behind
+        System.exit(0);
+    }
+
+    // browse:70,checkout:25,admin:5
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] scenario = part.trim().split(":");
+            if (scenario.length != 2) {
+                throw new IllegalArgumentException("Expected scenario:weight, got " + part);
+            }
+            weights.put(scenario[0].trim(), Integer.parseInt(scenario[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.loadtest;
+
+import org.example.gatewayservice.GatewayServiceApplication;
+import org.example.orderservice.OrderServiceApplication;
+import org.example.produitservice.ProduitServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * produit-service, order-service and gateway-service started in this JVM, each in its own Spring
+ * context, on free local ports. Each one reads its own application.properties and Flyway
+ * migrations; the overrides below replace Postgres by an in-memory H2 database, ms-keycloak by
+ * {@link KeycloakStub} and the docker-compose host names by localhost. Any extra override ("key" -> "value") wins over both.
+ */
+public class ServiceCluster implements AutoCloseable {
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final int gatewayPort;
+    private final int gatewayManagementPort = freePort();
+    private final int orderServicePort;
+    private final int orderServiceManagementPort = freePort();
+    private final int produitServicePort;
+    private final int produitServiceManagementPort = freePort();
+
+    private ServiceCluster(int gatewayPort, int orderServicePort, int produitServicePort) {
+        this.gatewayPort = gatewayPort;
+        this.orderServicePort = orderServicePort;
+        this.produitServicePort = produitServicePort;
+    }
+
+    public static ServiceCluster start(KeycloakStub keycloak, Map<String, String> overrides) {
+        // Ports are chosen up front: order-service calls produit-service, which notifies order-service back
+        ServiceCluster cluster = new ServiceCluster(freePort(), freePort(), freePort());
+        try {
+            cluster.startServices(keycloak, overrides);
+            return cluster;
+        } catch (RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+    }
+
+    private void startServices(KeycloakStub keycloak, Map<String, String> overrides) {
+        Map<String, String> common = new LinkedHashMap<>();
+        common.put("spring.security.oauth2.resourceserver.jwt.issuer-uri", keycloak.issuer());
+        common.put("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", keycloak.jwkSetUri());
+        // order-service's identity on the stock reservations of produit-service
+        common.put("security.service-identity.secret", "load-test-service-identity-secret-0123");
+        common.put("spring.main.banner-mode", "off");
+        common.put("debug", "false");
+        common.put("logging.level.root", "WARN");
+        common.put("logging.level.org.springframework.security", "WARN");
+        common.put("logging.level.org.springframework.web", "WARN");
+        common.put("logging.level.org.springframework.security.oauth2", "WARN");
+
+        Map<String, String> database = new LinkedHashMap<>(common);
+        database.put("spring.main.web-application-type", "servlet");
+        // Spring Cloud Gateway is on this classpath too, only gateway-service runs it
+        database.put("spring.cloud.gateway.enabled", "false");
+        database.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        database.put("spring.datasource.username", "sa");
+        database.put("spring.datasource.password", "");
+        database.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        database.put("spring.jpa.show-sql", "false");
+
+        Map<String, String> produit = new LinkedHashMap<>(database);
+        produit.put("spring.datasource.url", "jdbc:h2:mem:db_product;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        produit.put("product.change-notification.urls",
+                "http://localhost:" + orderServicePort + "/api/orders/product-cache/invalidations");
+        produit.put("management.server.port", String.valueOf(produitServiceManagementPort));
+        run(ProduitServiceApplication.class, "produit-service", produitServicePort, produit, overrides);
+
+        Map<String, String> order = new LinkedHashMap<>(database);
+        order.put("spring.datasource.url", "jdbc:h2:mem:db_order;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        order.put("product-service.url", "http://localhost:" + produitServicePort);
+        order.put("management.server.port", String.valueOf(orderServiceManagementPort));
+        run(OrderServiceApplication.class, "order-service", orderServicePort, order, overrides);
+
+        Map<String, String> gateway = new LinkedHashMap<>(common);
+        gateway.put("spring.main.web-application-type", "reactive");
+        // What only the backends use is on the classpath too
+        gateway.put("springdoc.api-docs.enabled", "false");
+        gateway.put("spring.autoconfigure.exclude", String.join(",",
+                "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+                "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+                "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration"));
+        gateway.put("product-service.url", "http://localhost:" + produitServicePort);
+        gateway.put("order-service.url", "http://localhost:" + orderServicePort);
+        gateway.put("management.server.port", String.valueOf(gatewayManagementPort));
+        run(GatewayServiceApplication.class, "gateway-service", gatewayPort, gateway, overrides, NettyServer.class);
+    }
+
+    private void run(Class<?> application, String name, int port, Map<String, String> properties,
+                     Map<String, String> overrides, Class<?>... configurations) {
+        Map<String, String> arguments = new LinkedHashMap<>(properties);
+        arguments.put("spring.config.location", "classpath:/" + name + "/application.properties");
+        arguments.put("spring.flyway.locations", "classpath:" + name + "/db/migration");
+        arguments.put("server.port", String.valueOf(port));
+        arguments.putAll(overrides);
+        // Command line arguments take precedence over the service's application.properties
+        String[] args = arguments.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        contexts.add(new SpringApplicationBuilder(application).sources(configurations).run(args));
+    }
+
+    // Reactor Netty as in the gateway image: Tomcat on the classpath (backends) would win otherwise,
+    // and compresses neither the same way nor responses with a strong ETag
+    @Configuration(proxyBeanMethods = false)
+    static class NettyServer {
+        @Bean
+        NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+            return new NettyReactiveWebServerFactory();
+        }
+    }
+
+    public String gatewayUrl() {
+        return "http://localhost:" + gatewayPort;
+    }
+
+    // Actuators (Prometheus scrape), each on its own port like in docker-compose
+    public String gatewayManagementUrl() {
+        return "http://localhost:" + gatewayManagementPort;
+    }
+
+    public String orderServiceManagementUrl() {
+        return "http://localhost:" + orderServiceManagementPort;
+    }
+
+    public String produitServiceManagementUrl() {
+        return "http://localhost:" + produitServiceManagementPort;
+    }
+
+    public String orderServiceUrl() {
+        return "http://localhost:" + orderServicePort;
+    }
+
+    public String produitServiceUrl() {
+        return "http://localhost:" + produitServicePort;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = contexts.size() - 1; i >= 0; i--) {
+            contexts.get(i).close();
+        }
+        contexts.clear();
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Traffic of the shop through the gateway, as three scenarios picked at random by weight:
+ * <ul>
+ *     <li>browse (CLIENT): catalog pages and product details</li>
+ *     <li>checkout (CLIENT): order of 1 to 5 products, then "my orders"</li>
+ *     <li>admin (ADMIN): orders listing and product updates (cache invalidations)</li>
+ * </ul>
+ * Each client has its own token (distinct JWT subject), as behind the gateway rate limits, and
+ * sends the {@code Accept-Encoding} of a browser ({@code identity} to measure without compression).
+ */
+public class ShopWorkload {
+    public static final Map<String, Integer> DEFAULT_MIX = defaultMix();
+    public static final String DEFAULT_ACCEPT_ENCODING = "gzip, deflate, br";
+
+    private final String gatewayUrl;
+    private final List<String> clientTokens;
+    private final String adminToken;
+    private final String acceptEncoding;
+    private final List<Long> productIds;
+    private final String[] scenarios;
+    private final int[] cumulativeWeights;
+
+    private static Map<String, Integer> defaultMix() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        mix.put("browse", 65);
+        mix.put("checkout", 27);
+        mix.put("admin", 8);
+        return Collections.unmodifiableMap(mix);
+    }
+
+    private ShopWorkload(String gatewayUrl, List<String> clientTokens, String adminToken, String acceptEncoding,
+                         List<Long> productIds, Map<String, Integer> mix) {
+        this.gatewayUrl = gatewayUrl;
+        this.clientTokens = clientTokens;
+        this.adminToken = adminToken;
+        this.acceptEncoding = acceptEncoding;
+        this.productIds = productIds;
+        this.scenarios = new String[mix.size()];
+        this.cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        int index = 0;
+        for (Map.Entry<String, Integer> scenario : mix.entrySet()) {
+            if (!DEFAULT_MIX.containsKey(scenario.getKey())) {
+                throw new IllegalArgumentException("Unknown scenario: " + scenario.getKey());
+            }
+            total += Math.max(0, scenario.getValue());
+            scenarios[index] = scenario.getKey();
+            cumulativeWeights[index++] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Empty scenario mix: " + mix);
+        }
+    }
+
+    // Loads the catalog through the gateway (bulk upsert as ADMIN) and mints one token per client
+    public static ShopWorkload prepare(HttpClient client, String gatewayUrl, KeycloakStub keycloak, int products,
+                                       int clients, Map<String, Integer> mix, String acceptEncoding)
+            throws IOException, InterruptedException {
+        String adminToken = keycloak.accessToken("admin", List.of("ADMIN"));
+        List<String> clientTokens = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            clientTokens.add(keycloak.accessToken("client" + i, List.of("CLIENT")));
+        }
+
+        StringBuilder catalog = new StringBuilder("[");
+        for (int i = 0; i < products; i++) {
+            catalog.append(i == 0 ? "" : ",")
+                    .append("{\"sku\":\"LT-").append(i).append("\",\"name\":\"Product ").append(i)
+                    .append("\",\"description\":\"load test\",\"price\":").append(5 + i % 50)
+                    .append(",\"quantity\":1000000000}");
+        }
+        send(client, HttpRequest.newBuilder(URI.create(gatewayUrl + "/api/products/bulk"))
+                .header("Authorization", "Bearer " + adminToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(catalog.append(']').toString()))
+                .build());
+
+        // Ids of the catalog, page by page
+        ObjectMapper objectMapper = new ObjectMapper();
+        Set<Long> productIds = new LinkedHashSet<>();
+        String cursor = null;
+        do {
+            HttpResponse<String> page = send(client, HttpRequest.newBuilder(URI.create(gatewayUrl
+                            + "/api/products?size=500" + (cursor == null ? "" : "&cursor=" + cursor)))
+                    .header("Authorization", "Bearer " + adminToken)
+                    .build());
+            for (JsonNode product : objectMapper.readTree(page.body())) {
+                productIds.add(product.get("id").asLong());
+            }
+            cursor = page.headers().firstValue("X-Next-Cursor").orElse(null);
+        } while (cursor != null);
+        if (productIds.isEmpty()) {
+            throw new IllegalStateException("No product in the catalog");
+        }
+        return new ShopWorkload(gatewayUrl, clientTokens, adminToken, acceptEncoding, List.copyOf(productIds), mix);
+    }
+
+    private static HttpResponse<String> send(HttpClient client, HttpRequest request)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " -> " + response.statusCode()
+                    + " " + response.body());
+        }
+        return response;
+    }
+
+    public LoadRequest next(ThreadLocalRandom random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (draw >= cumulativeWeights[index]) {
+            index++;
+        }
+        return switch (scenarios[index]) {
+            case "browse" -> browse(random);
+            case "checkout" -> checkout(random);
+            default -> admin(random);
+        };
+    }
+
+    private LoadRequest browse(ThreadLocalRandom random) {
+        String token = clientTokens.get(random.nextInt(clientTokens.size()));
+        if (random.nextInt(100) < 55) {
+            // First page most of the time, otherwise a page further down the catalog
+            Long cursor = random.nextInt(4) == 0 ? randomProduct(random) : null;
+            return get("GET /api/products", "/api/products?size=20" + (cursor == null ? "" : "&cursor=" + cursor), token);
+        }
+        return get("GET /api/products/{id}", "/api/products/" + randomProduct(random), token);
+    }
+
+    private LoadRequest checkout(ThreadLocalRandom random) {
+        String token = clientTokens.get(random.nextInt(clientTokens.size()));
+        if (random.nextInt(100) < 55) {
+            Set<Long> cart = new LinkedHashSet<>();
+            int lines = 1 + random.nextInt(Math.min(5, productIds.size()));
+            while (cart.size() < lines) {
+                cart.add(randomProduct(random));
+            }
+            StringBuilder body = new StringBuilder("{\"orderItemsList\":[");
+            for (Long productId : cart) {
+                body.append(body.charAt(body.length() - 1) == '[' ? "" : ",")
+                        .append("{\"productId\":").append(productId).append(",\"quantity\":1}");
+            }
+            return send("POST /api/orders", "/api/orders", token, "POST", body.append("]}").toString());
+        }
+        return get("GET /api/orders/my-orders", "/api/orders/my-orders", token);
+    }
+
+    private LoadRequest admin(ThreadLocalRandom random) {
+        if (random.nextInt(100) < 60) {
+            return get("GET /api/orders", "/api/orders?size=50", adminToken);
+        }
+        long productId = randomProduct(random);
+        String body = "{\"name\":\"Product " + productId + "\",\"description\":\"load test\",\"price\":"
+                + (5 + random.nextInt(50)) + ",\"quantity\":1000000000}";
+        return send("PUT /api/products/{id}", "/api/products/" + productId, adminToken, "PUT", body);
+    }
+
+    private long randomProduct(ThreadLocalRandom random) {
+        return productIds.get(random.nextInt(productIds.size()));
+    }
+
+    private LoadRequest get(String endpoint, String path, String token) {
+        return new LoadRequest(endpoint, HttpRequest.newBuilder(URI.create(gatewayUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept-Encoding", acceptEncoding)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build());
+    }
+
+    private LoadRequest send(String endpoint, String path, String token, String method, String json) {
+        return new LoadRequest(endpoint, HttpRequest.newBuilder(URI.create(gatewayUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", acceptEncoding)
+                .timeout(Duration.ofSeconds(30))
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build());
+    }
+
+    public record LoadRequest(String endpoint, HttpRequest request) {
+    }
+}
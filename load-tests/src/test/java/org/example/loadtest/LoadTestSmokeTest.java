@@ -0,0 +1,238 @@
+package org.example.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Whole chain offline: stub token -> gateway -> order-service -> produit-service, on H2
+class LoadTestSmokeTest {
+    private static KeycloakStub keycloak;
+    private static final Path SPANS = Path.of("target/spans");
+    private static ServiceCluster cluster;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        FileSystemUtils.deleteRecursively(SPANS);
+        keycloak = KeycloakStub.start(Duration.ofMinutes(10));
+        // Only the order creations are traced, each service writes its spans to its own file
+        cluster = ServiceCluster.start(keycloak, Map.of(
+                "management.tracing.sampling.probability", "0",
+                "tracing.sampling.routes", "/api/orders=1.0",
+                "tracing.exporter.file.path", SPANS + "/${spring.application.name}.jsonl"));
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        if (cluster != null) {
+            cluster.close();
+        }
+        if (keycloak != null) {
+            keycloak.close();
+        }
+    }
+
+    @Test
+    void everyScenarioGoesThroughTheGatewayWithoutErrors() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        ShopWorkload workload = ShopWorkload.prepare(client, cluster.gatewayUrl(), keycloak, 50, 20,
+                Map.of("browse", 1, "checkout", 1, "admin", 1), ShopWorkload.DEFAULT_ACCEPT_ENCODING);
+
+        LoadReport report = new LoadGenerator(client, 1000)
+                .run(workload, 15, Duration.ofSeconds(2), Duration.ofSeconds(4));
+
+        report.print(System.out);
+        assertThat(report.requests()).isEqualTo(60);
+        assertThat(report.dropped()).isZero();
+        // Concurrent edits of a product may end in 409 (optimistic locking), anything else is a failure
+        assertThat(report.endpoints()).allSatisfy(endpoint ->
+                assertThat(endpoint.outcomes().keySet()).isSubsetOf("200", "409"));
+        assertThat(report.endpoints()).extracting(LoadReport.EndpointReport::endpoint)
+                .contains("GET /api/products", "POST /api/orders", "GET /api/orders");
+        assertThat(report.endpoints()).allSatisfy(endpoint -> assertThat(endpoint.p99()).isPositive());
+    }
+
+    @Test
+    void largeResponsesAreCompressedForClientsThatAcceptIt() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        String admin = keycloak.accessToken("compression-admin", List.of("ADMIN"));
+        StringBuilder products = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            products.append(i == 0 ? "" : ",").append("{\"sku\":\"GZ-").append(i).append("\",\"name\":\"Product ")
+                    .append(i).append("\",\"description\":\"compressed\",\"price\":5,\"quantity\":10}");
+        }
+        client.send(HttpRequest.newBuilder(URI.create(cluster.gatewayUrl() + "/api/products/bulk"))
+                .header("Authorization", "Bearer " + admin)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(products.append(']').toString()))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        URI catalog = URI.create(cluster.gatewayUrl() + "/api/products?size=100");
+
+        HttpResponse<byte[]> plain = client.send(HttpRequest.newBuilder(catalog)
+                .header("Authorization", "Bearer " + admin)
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> gzip = client.send(HttpRequest.newBuilder(catalog)
+                .header("Authorization", "Bearer " + admin)
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(plain.statusCode()).isEqualTo(200);
+        assertThat(plain.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(gzip.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(gzip.headers().allValues("Vary")).contains("Accept-Encoding");
+        assertThat(plain.headers().firstValue("x-http2-stream-id")).isEmpty();
+        assertThat(new String(new GZIPInputStream(new ByteArrayInputStream(gzip.body())).readAllBytes(),
+                StandardCharsets.UTF_8)).isEqualTo(new String(plain.body(), StandardCharsets.UTF_8));
+        assertThat(gzip.body().length).isLessThan(plain.body().length / 3);
+        // Brotli first when the client offers it (native library on this platform)
+        HttpResponse<byte[]> browser = client.send(HttpRequest.newBuilder(catalog)
+                .header("Authorization", "Bearer " + admin)
+                .header("Accept-Encoding", ShopWorkload.DEFAULT_ACCEPT_ENCODING)
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(browser.headers().firstValue("Content-Encoding")).hasValue("br");
+        // Under min-response-size: sent plain with its length, although the backend streams it chunked
+        HttpResponse<byte[]> small = client.send(HttpRequest.newBuilder(
+                        URI.create(cluster.gatewayUrl() + "/api/products?size=1"))
+                .header("Authorization", "Bearer " + admin)
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(small.statusCode()).isEqualTo(200);
+        assertThat(small.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(small.headers().firstValueAsLong("Content-Length")).hasValue(small.body().length);
+    }
+
+    @Test
+    void everyServiceExposesPrometheusMetricsWithoutTokenOnItsActuatorPort() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        Map<String, String> services = Map.of("gateway-service", cluster.gatewayManagementUrl(),
+                "order-service", cluster.orderServiceManagementUrl(), "produit-service", cluster.produitServiceManagementUrl());
+        for (Map.Entry<String, String> service : services.entrySet()) {
+            HttpResponse<String> scrape = client.send(HttpRequest.newBuilder(
+                    URI.create(service.getValue() + "/actuator/prometheus")).build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(scrape.statusCode()).isEqualTo(200);
+            assertThat(scrape.body()).contains("application=\"" + service.getKey() + "\"");
+        }
+        // The token verification timer shows up with the first token order-service decodes
+        client.send(HttpRequest.newBuilder(URI.create(cluster.gatewayUrl() + "/api/orders/my-orders"))
+                .header("Authorization", "Bearer " + keycloak.accessToken("scraper", List.of("CLIENT")))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<String> orderService = client.send(HttpRequest.newBuilder(
+                URI.create(cluster.orderServiceManagementUrl() + "/actuator/prometheus")).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(orderService.body()).contains("hikaricp_connections_active", "orders_created_total",
+                "security_jwt_verify_seconds", "cache_gets_total{application=\"order-service\",cache=\"product\"",
+                "resilience4j_circuitbreaker_state", "resilience4j_bulkhead_available_concurrent_calls",
+                "httpcomponents_httpclient_pool_total_pending");
+        // Gateway connection pools to the backends, one per route backend
+        HttpResponse<String> gateway = client.send(HttpRequest.newBuilder(
+                URI.create(cluster.gatewayManagementUrl() + "/actuator/prometheus")).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(gateway.body()).contains("reactor_netty_connection_provider_max_connections");
+        // Not on the published ports
+        for (String url : List.of(cluster.gatewayUrl(), cluster.orderServiceUrl(), cluster.produitServiceUrl())) {
+            assertThat(client.send(HttpRequest.newBuilder(URI.create(url + "/actuator/prometheus")).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(401);
+        }
+    }
+
+    @Test
+    void orderCreationIsOneTraceFromTheGatewayToTheProductDatabase() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        String admin = keycloak.accessToken("trace-admin", List.of("ADMIN"));
+        HttpResponse<String> product = client.send(HttpRequest.newBuilder(URI.create(cluster.gatewayUrl() + "/api/products"))
+                .header("Authorization", "Bearer " + admin)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\":\"traced\",\"description\":\"\",\"price\":3,\"quantity\":10}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        long productId = new ObjectMapper().readTree(product.body()).get("id").asLong();
+
+        HttpResponse<String> order = client.send(HttpRequest.newBuilder(URI.create(cluster.gatewayUrl() + "/api/orders"))
+                .header("Authorization", "Bearer " + keycloak.accessToken("trace-client", List.of("CLIENT")))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"orderItemsList\":[{\"productId\":" + productId + ",\"quantity\":1}]}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(order.statusCode()).isEqualTo(200);
+
+        // Spans are exported in batches, every few seconds
+        List<JsonNode> trace = List.of();
+        for (long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos(); System.nanoTime() < deadline; ) {
+            trace = traceOf(productId);
+            if (services(trace).size() == 3 && names(trace, "order-service").contains("query")
+                    && names(trace, "produit-service").contains("query")
+                    && trace.stream().anyMatch(span -> span.get("parentSpanId").isNull())) {
+                break;
+            }
+            Thread.sleep(500);
+        }
+
+        // The spans are only printed when an assertion fails
+        String spans = trace.stream().map(JsonNode::toString).collect(Collectors.joining(System.lineSeparator()));
+        assertThat(services(trace)).as("trace:%n%s", spans)
+                .containsExactlyInAnyOrder("gateway-service", "order-service", "produit-service");
+        assertThat(names(trace, "order-service")).as("trace:%n%s", spans).contains("security.jwt.verify", "query");
+        assertThat(names(trace, "produit-service")).as("trace:%n%s", spans).contains("security.jwt.verify", "query");
+        // Only the root has no parent, every other span hangs off a span of the same trace
+        Set<String> spanIds = trace.stream().map(span -> span.get("spanId").asText()).collect(Collectors.toSet());
+        assertThat(trace).as("trace:%n%s", spans).filteredOn(span -> span.get("parentSpanId").isNull()).hasSize(1);
+        assertThat(trace).as("trace:%n%s", spans).filteredOn(span -> !span.get("parentSpanId").isNull())
+                .allSatisfy(span -> assertThat(spanIds).contains(span.get("parentSpanId").asText()));
+    }
+
+    // Spans of the trace whose order-service SQL inserted this product id as an order line
+    private static List<JsonNode> traceOf(long productId) throws IOException {
+        List<JsonNode> spans = new ArrayList<>();
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String service : List.of("gateway-service", "order-service", "produit-service")) {
+            Path file = SPANS.resolve(service + ".jsonl");
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file)) {
+                    spans.add(objectMapper.readTree(line));
+                }
+            }
+        }
+        String traceId = spans.stream()
+                .filter(span -> "produit-service".equals(span.get("service").asText()))
+                .filter(span -> span.get("attributes").toString().contains("/api/products/reservations"))
+                .map(span -> span.get("traceId").asText())
+                .findFirst().orElse(null);
+        return spans.stream().filter(span -> span.get("traceId").asText().equals(traceId)).toList();
+    }
+
+    private static Set<String> services(List<JsonNode> spans) {
+        return spans.stream().map(span -> span.get("service").asText()).collect(Collectors.toSet());
+    }
+
+    private static Set<String> names(List<JsonNode> spans, String service) {
+        return spans.stream().filter(span -> service.equals(span.get("service").asText()))
+                .map(span -> span.get("name").asText()).collect(Collectors.toSet());
+    }
+
+    @Test
+    void mixIsParsedFromTheCommandLine() {
+        assertThat(LoadTestMain.parseMix("browse:70, checkout:25,admin:5"))
+                .containsExactly(Map.entry("browse", 70), Map.entry("checkout", 25), Map.entry("admin", 5));
+    }
+}
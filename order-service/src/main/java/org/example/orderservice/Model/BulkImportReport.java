@@ -0,0 +1,43 @@
+package org.example.orderservice.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Result of POST /api/orders/bulk: throughput of every committed chunk and the rejected records
+@Getter
+@Setter
+public class BulkImportReport {
+    private int received;
+    private int imported;
+    private int failed;
+    private long millis;
+    private List<ChunkReport> chunks = new ArrayList<>();
+    private List<RecordError> errors = new ArrayList<>();
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChunkReport {
+        private int chunk;
+        private int records;
+        private int imported;
+        private long millis;
+        private double ordersPerSecond;
+    }
+
+    // index = position of the order in the request body
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+        private int index;
+        private String error;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.orderservice.Model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// Notification pushed by produit-service when products are updated or deleted
+@Getter
+@Setter
+public class ProductChangeDTO {
+    private List<Long> productIds;
+    private String type;
+}
@@ -0,0 +1,15 @@
+package org.example.orderservice.Model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// Stock held by produit-service while the order is saved
+@Getter
+@Setter
+public class StockReservationDTO {
+    private String id;
+    private String status;
+    private List<ReservationItemDTO> items;
+}
@@ -0,0 +1,100 @@
+package org.example.orderservice.cache;
+
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.feign.AuthorizationContext;
+import org.example.orderservice.feign.ProductRestClients;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads products from produit-service in chunks of {@code product.lookup.chunk-size} ids fetched
+ * concurrently, at most {@code product.lookup.max-concurrency} at a time for one call, so a large
+ * cart costs about one (slow) lookup instead of their sum. The whole load must finish within
+ * {@code product.lookup.deadline}. Workers get the caller's Authorization through {@link AuthorizationContext}.
+ */
+@Component
+public class ParallelProductLoader {
+
+    private final ProductRestClients productRestClients;
+    private final int chunkSize;
+    private final int maxConcurrency;
+    private final Duration deadline;
+    private final Executor executor;
+
+    @Autowired
+    public ParallelProductLoader(ProductRestClients productRestClients,
+                                 @Value("${product.lookup.chunk-size:25}") int chunkSize,
+                                 @Value("${product.lookup.max-concurrency:8}") int maxConcurrency,
+                                 @Value("${product.lookup.deadline:3s}") Duration deadline,
+                                 TaskExecutor taskExecutor) {
+        this(productRestClients, chunkSize, maxConcurrency, deadline, (Executor) taskExecutor);
+    }
+
+    ParallelProductLoader(ProductRestClients productRestClients, int chunkSize, int maxConcurrency,
+                          Duration deadline, Executor executor) {
+        this.productRestClients = productRestClients;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.deadline = deadline;
+        this.executor = executor;
+    }
+
+    public List<ProductDTO> findProductsByIds(List<Long> ids) {
+        if (ids.size() <= chunkSize) {
+            // Nothing to fan out: no thread hop
+            return productRestClients.findProductsByIds(ids);
+        }
+
+        Queue<List<Long>> chunks = new ConcurrentLinkedQueue<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(List.copyOf(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+
+        // maxConcurrency workers drain the chunks, so one big cart cannot take the whole executor
+        Queue<ProductDTO> loaded = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(maxConcurrency, chunks.size()); i++) {
+            workers.add(CompletableFuture.runAsync(AuthorizationContext.wrap(() -> {
+                List<Long> chunk;
+                while ((chunk = chunks.poll()) != null) {
+                    loaded.addAll(productRestClients.findProductsByIds(chunk));
+                }
+            }), executor));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new));
+        try {
+            all.get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Remaining chunks are dropped, running calls end on their own Feign timeout
+            chunks.clear();
+            workers.forEach(worker -> worker.cancel(true));
+            throw new RuntimeException("Product lookup exceeded its deadline of " + deadline.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chunks.clear();
+            throw new RuntimeException("Product lookup interrupted", e);
+        } catch (ExecutionException e) {
+            chunks.clear();
+            // First failure as thrown by Feign, so callers handle it as before
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        return new ArrayList<>(loaded);
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.orderservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.feign.AuthorizationContext;
+import org.example.orderservice.feign.ProductRestClients;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-process cache of {@link ProductDTO} in front of {@link ProductRestClients}.
+ * <p>
+ * An entry is fresh for {@code product.cache.ttl}. After that it is still served for
+ * {@code product.cache.stale-window} while a background call revalidates it, so order
+ * creation keeps working when produit-service is slow or down. produit-service pushes
+ * change notifications that evict entries as soon as a product is updated or deleted.
+ * Concurrent loads of the same ids are collapsed into one call by a {@link SingleFlight}.
+ * A load that overlaps an invalidation is returned to its caller but not stored, so it cannot
+ * put back what the invalidation just removed.
+ */
+@Component
+@Slf4j
+public class ProductCache implements MeterBinder {
+
+    private final ParallelProductLoader productLoader;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Ticker ticker;
+    private final Cache<Long, CachedProduct> cache;
+    private final Executor refreshExecutor;
+    private final SingleFlight<Long, ProductDTO> singleFlight = new SingleFlight<>();
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    // Bumped by every invalidation: loads that started before it are not stored
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    @Autowired
+    public ProductCache(ParallelProductLoader productLoader,
+                        @Value("${product.cache.enabled:true}") boolean enabled,
+                        @Value("${product.cache.ttl:30s}") Duration ttl,
+                        @Value("${product.cache.stale-window:5m}") Duration staleWindow,
+                        @Value("${product.cache.maximum-size:10000}") long maximumSize) {
+        this(productLoader, enabled, ttl, staleWindow, maximumSize, Ticker.systemTicker(), newRefreshExecutor());
+    }
+
+    ProductCache(ParallelProductLoader productLoader, boolean enabled, Duration ttl, Duration staleWindow,
+                 long maximumSize, Ticker ticker, Executor refreshExecutor) {
+        this.productLoader = productLoader;
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.refreshExecutor = refreshExecutor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl.plus(staleWindow))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        // Revalidation is best-effort: when the queue is full the task is rejected (see revalidate)
+        return new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100), runnable -> {
+            Thread thread = new Thread(runnable, "product-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the requested products keyed by id. Cached entries are served directly, all misses
+     * are loaded with one batch call. Ids unknown to produit-service are absent from the result.
+     */
+    public Map<Long, ProductDTO> getProducts(Collection<Long> ids) {
+        Map<Long, ProductDTO> products = new HashMap<>();
+        if (!enabled) {
+            products.putAll(load(ids, false));
+            return products;
+        }
+
+        long now = ticker.read();
+        List<Long> missing = new ArrayList<>();
+        List<Long> stale = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            CachedProduct cached = cache.getIfPresent(id);
+            if (cached == null) {
+                missing.add(id);
+                continue;
+            }
+            products.put(id, cached.product());
+            if (now - cached.loadedAt() > ttlNanos) {
+                stale.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            products.putAll(load(missing, true));
+        }
+        if (!stale.isEmpty()) {
+            staleHits.add(stale.size());
+            revalidate(stale);
+        }
+        return products;
+    }
+
+    public void invalidate(Collection<Long> ids) {
+        generation.incrementAndGet();
+        cache.invalidateAll(ids);
+        log.info("Product cache: {} entries invalidated", ids.size());
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        log.info("Product cache cleared");
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("staleHits", staleHits.sum());
+        result.put("evictions", stats.evictionCount());
+        result.put("refreshFailures", refreshFailures.sum());
+        result.put("coalescedLoads", singleFlight.coalescedCount());
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "product");
+        FunctionCounter.builder("product.cache.stale.hits", staleHits, LongAdder::sum)
+                .description("Entries served stale while being revalidated")
+                .register(registry);
+        FunctionCounter.builder("product.cache.refresh.failures", refreshFailures, LongAdder::sum)
+                .description("Background revalidations that failed")
+                .register(registry);
+        FunctionCounter.builder("product.cache.coalesced.loads", singleFlight, SingleFlight::coalescedCount)
+                .description("Loads that waited for another request's call instead of calling produit-service")
+                .register(registry);
+    }
+
+    private void revalidate(List<Long> staleIds) {
+        List<Long> toRefresh = new ArrayList<>();
+        for (Long id : staleIds) {
+            if (refreshing.add(id)) {
+                toRefresh.add(id);
+            }
+        }
+        if (toRefresh.isEmpty()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(AuthorizationContext.wrap(() -> {
+                try {
+                    long startGeneration = generation.get();
+                    List<ProductDTO> fresh = productLoader.findProductsByIds(toRefresh);
+                    Set<Long> found = new LinkedHashSet<>();
+                    for (ProductDTO product : fresh) {
+                        store(product, ticker.read(), startGeneration);
+                        found.add(product.getId());
+                    }
+                    // Products deleted in the meantime must not be served anymore
+                    for (Long id : toRefresh) {
+                        if (!found.contains(id)) {
+                            cache.invalidate(id);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    log.warn("Product cache: revalidation of {} failed, serving stale data: {}", toRefresh, e.getMessage());
+                } finally {
+                    toRefresh.forEach(refreshing::remove);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            // Refresh queue full: the stale entries are kept, and revalidated by a later read
+            toRefresh.forEach(refreshing::remove);
+            refreshFailures.increment();
+        }
+    }
+
+    // Products are the same for every caller, so a waiter can safely reuse another request's load
+    private Map<Long, ProductDTO> load(Collection<Long> ids, boolean store) {
+        return singleFlight.loadAll(ids, batch -> {
+            Map<Long, ProductDTO> loaded = new HashMap<>();
+            long startGeneration = generation.get();
+            long now = ticker.read();
+            for (ProductDTO product : productLoader.findProductsByIds(batch)) {
+                loaded.put(product.getId(), product);
+                // Stored before the in-flight entry goes away, so a late caller finds it cached
+                if (store) {
+                    store(product, now, startGeneration);
+                }
+            }
+            return loaded;
+        });
+    }
+
+    // Checked under the entry's lock: an invalidation either comes after the put and removes it,
+    // or bumped the generation before and the put does not happen
+    private void store(ProductDTO product, long loadedAt, long startGeneration) {
+        cache.asMap().compute(product.getId(), (id, current) ->
+                generation.get() == startGeneration ? new CachedProduct(product, loadedAt) : current);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private record CachedProduct(ProductDTO product, long loadedAt) {
+    }
+}
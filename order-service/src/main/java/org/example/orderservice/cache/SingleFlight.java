@@ -0,0 +1,100 @@
+package org.example.orderservice.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent loads of the same keys into one upstream call.
+ * <p>
+ * The first caller asking for a key leads: it loads all the keys nobody else is loading in one
+ * call. Callers arriving while that load is in flight wait for its result instead of calling
+ * upstream again. A failure of the leader is rethrown to every waiter. Only suited to data that
+ * does not depend on who is asking.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param loader loads the given keys, keys absent from the returned map have no value
+     * @return the values found, keyed by key
+     */
+    public Map<K, V> loadAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> leading = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> waiting = new LinkedHashMap<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            CompletableFuture<V> own = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+            if (existing == null) {
+                leading.put(key, own);
+            } else {
+                waiting.put(key, existing);
+            }
+        }
+        coalesced.add(waiting.size());
+
+        // Our own keys are loaded (and their futures completed) before waiting on anybody else's,
+        // so two callers leading each other's keys cannot deadlock
+        Map<K, V> result = new HashMap<>();
+        if (!leading.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(new ArrayList<>(leading.keySet()));
+                leading.forEach((key, future) -> {
+                    V value = loaded.get(key);
+                    future.complete(value);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                });
+            } catch (RuntimeException | Error e) {
+                leading.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                leading.forEach(inFlight::remove);
+            }
+        }
+
+        for (Map.Entry<K, CompletableFuture<V>> entry : waiting.entrySet()) {
+            V value = await(entry.getValue());
+            if (value != null) {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight load", e);
+        } catch (ExecutionException | CompletionException e) {
+            // Same exception as the leader got (e.g. a FeignException), so error handling does not change
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
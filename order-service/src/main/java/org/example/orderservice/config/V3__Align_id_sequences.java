@@ -0,0 +1,38 @@
+package org.example.orderservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Orders were numbered by identity columns before the id sequences existed: on a database
+// that already has orders, the sequences are moved past the highest id before any insert.
+// A Spring bean, so Flyway picks it up from the context (the class name is its version).
+@Component
+@Slf4j
+public class V3__Align_id_sequences extends BaseJavaMigration {
+
+    // sequence -> {table, id column}
+    private static final Map<String, String[]> SEQUENCES = Map.of(
+            "orders_seq", new String[]{"orders", "order_id"},
+            "order_items_seq", new String[]{"order_items", "id"});
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        if (!"PostgreSQL".equals(context.getConnection().getMetaData().getDatabaseProductName())) {
+            return;
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        SEQUENCES.forEach((sequence, table) -> {
+            // greatest(): never moves a sequence backwards
+            Long value = jdbcTemplate.queryForObject("select setval('" + sequence + "', greatest("
+                    + "(select coalesce(max(" + table[1] + "), 0) from " + table[0] + "), "
+                    + "(select last_value from " + sequence + ")))", Long.class);
+            log.info("Sequence {} at {}", sequence, value);
+        });
+    }
+}
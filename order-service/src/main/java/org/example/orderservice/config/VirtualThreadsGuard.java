@@ -0,0 +1,97 @@
+package org.example.orderservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Checks what spring.threads.virtual.enabled=true relies on, at startup:
+ * <ul>
+ *     <li>a Java 21+ runtime: the setting is silently ignored before (e.g. VIRTUAL_THREADS_ENABLED=true with
+ *     the default JAVA_RUNTIME_VERSION=17 image), requests would still run on the Tomcat pool</li>
+ *     <li>pgjdbc 42.6+: older drivers do their socket I/O inside synchronized blocks, which pins the carrier
+ *     thread for the whole query. Refused</li>
+ *     <li>HikariCP 5.1+: 5.0 still synchronizes in its pool (the Boot 3.2 BOM resolves 5.0.1) and may pin
+ *     while connections are created. Only reported</li>
+ *     <li>jdk.tracePinnedThreads set (the Docker images start with -Djdk.tracePinnedThreads=short), so that
+ *     pinning shows up in the logs</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadsGuard {
+    private final DataSource dataSource;
+
+    public VirtualThreadsGuard(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void checkVirtualThreads() throws SQLException {
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled=true is ignored on Java {}: requests run on platform threads, "
+                    + "use a Java 21+ runtime (build-arg JAVA_RUNTIME_VERSION=21)", Runtime.version().feature());
+            return;
+        }
+
+        String driver;
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            driver = metaData.getDriverName() + " " + metaData.getDriverVersion();
+            if (metaData.getDriverName().toLowerCase().contains("postgresql")
+                    && olderThan(metaData.getDriverMajorVersion(), metaData.getDriverMinorVersion(), 42, 6)) {
+                throw new IllegalStateException("PostgreSQL JDBC driver " + metaData.getDriverVersion()
+                        + " pins virtual threads, use 42.6+ or set spring.threads.virtual.enabled=false");
+            }
+        }
+
+        String hikari = hikariVersion();
+        if (hikari != null && olderThan(hikari, 5, 1)) {
+            log.warn("HikariCP {} synchronizes in its pool and may pin virtual threads while connections are created, "
+                    + "5.1+ does not (hikaricp.version)", hikari);
+        }
+        if (System.getProperty("jdk.tracePinnedThreads") == null) {
+            log.warn("Pinned virtual threads are not reported: start the JVM with -Djdk.tracePinnedThreads=short");
+        }
+        log.info("Virtual threads enabled, JDBC driver {}, HikariCP {}", driver, hikari);
+    }
+
+    private static String hikariVersion() {
+        try (InputStream pom = HikariDataSource.class.getResourceAsStream("/META-INF/maven/com.zaxxer/HikariCP/pom.properties")) {
+            if (pom == null) {
+                return null;
+            }
+            Properties properties = new Properties();
+            properties.load(pom);
+            return properties.getProperty("version");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // "5.0.1" older than 5.1; a version that does not parse is not reported
+    static boolean olderThan(String version, int major, int minor) {
+        String[] parts = version.split("[.-]");
+        try {
+            return olderThan(Integer.parseInt(parts[0]), parts.length > 1 ? Integer.parseInt(parts[1]) : 0, major, minor);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    static boolean olderThan(int actualMajor, int actualMinor, int major, int minor) {
+        return actualMajor < major || (actualMajor == major && actualMinor < minor);
+    }
+}
@@ -16,7 +16,9 @@ import java.util.List;
 
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence with a pooled optimizer (one nextval per 50 ids) so inserts can be JDBC-batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private long orderId;
     private Date date_commande;
     private String statut;
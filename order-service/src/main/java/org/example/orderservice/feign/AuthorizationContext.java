@@ -0,0 +1,55 @@
+package org.example.orderservice.feign;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Gives Feign the caller's credentials, also on threads that have no servlet request bound
+public final class AuthorizationContext {
+
+    // "Authorization" plus the identity signed by the gateway, when there is one
+    static final String[] RELAYED_HEADERS = {"Authorization", "X-Internal-Identity"};
+
+    private static final ThreadLocal<Map<String, String>> HEADERS = new ThreadLocal<>();
+
+    private AuthorizationContext() {
+    }
+
+    public static Map<String, String> currentHeaders() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            HttpServletRequest request = attributes.getRequest();
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String name : RELAYED_HEADERS) {
+                String value = request.getHeader(name);
+                if (value != null) {
+                    headers.put(name, value);
+                }
+            }
+            return headers;
+        }
+        Map<String, String> headers = HEADERS.get();
+        return headers != null ? headers : Map.of();
+    }
+
+    // Captures the headers now and restores them around the task when it runs on another thread
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> headers = currentHeaders();
+        return () -> {
+            Map<String, String> previous = HEADERS.get();
+            HEADERS.set(headers);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    HEADERS.remove();
+                } else {
+                    HEADERS.set(previous);
+                }
+            }
+        };
+    }
+}
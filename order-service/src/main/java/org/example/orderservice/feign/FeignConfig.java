@@ -2,30 +2,60 @@ package org.example.orderservice.feign;
 
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.Model.ReservationItemDTO;
+import org.example.orderservice.Model.StockReservationDTO;
+import org.example.security.ServiceIdentitySigner;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
+// AOT/native: the bodies of ProductRestClients are (de)serialized by Jackson through reflection.
+// Unlike controllers, Feign interfaces are not scanned for binding hints.
 @Configuration
+@RegisterReflectionForBinding({ProductDTO.class, StockReservationDTO.class, ReservationItemDTO.class})
 public class FeignConfig {
 
+    // Stock reservations: product-service only accepts them from order-service itself
+    static final String RESERVATIONS_PATH = "/api/products/reservations";
+
     @Bean
-    public RequestInterceptor requestInterceptor() {
+    public ServiceIdentitySigner serviceIdentitySigner(@Value("${spring.application.name:order-service}") String applicationName,
+                                                       @Value("${security.service-identity.secret:}") String secret) {
+        return new ServiceIdentitySigner(applicationName, secret);
+    }
+
+    @Bean
+    public RequestInterceptor requestInterceptor(ServiceIdentitySigner serviceIdentitySigner) {
         return new RequestInterceptor() {
             @Override
             public void apply(RequestTemplate template) {
-                ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                if (attributes != null) {
-                    // Grab the "Authorization" header from the incoming request
-                    String authHeader = attributes.getRequest().getHeader("Authorization");
-
-                    // Pass it downstream to the Product Service
-                    if (authHeader != null) {
-                        template.header("Authorization", authHeader);
-                    }
+                if (template.path().startsWith(RESERVATIONS_PATH)) {
+                    // On order-service's own behalf: the buyer's token is not forwarded
+                    template.header(ServiceIdentitySigner.HEADER, serviceIdentitySigner.header());
+                    return;
                 }
+                // Grab the "Authorization" (and gateway identity) headers from the incoming request
+                // and pass them downstream to the Product Service
+                AuthorizationContext.currentHeaders().forEach(template::header);
             }
         };
     }
-}
\ No newline at end of file
+
+    // Apache HttpClient 5 pool behind Feign (spring.cloud.openfeign.httpclient.*): leased, available
+    // and pending connections, pending > 0 meaning callers wait for a connection
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManager) {
+        return registry -> connectionManager.ifAvailable(manager -> {
+            if (manager instanceof PoolingHttpClientConnectionManager pool) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(pool, "feign").bindTo(registry);
+            }
+        });
+    }
+}
@@ -1,14 +1,38 @@
 package org.example.orderservice.feign;
 
 import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.Model.StockReservationDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
-@FeignClient(name = "produit-service", url = "http://product-service:8081")
+import java.util.Collection;
+import java.util.List;
+
+// The bare HTTP client; what gets injected is ResilientProductRestClients, which wraps it
+@FeignClient(name = "produit-service", url = "${product-service.url:http://product-service:8081}",
+        qualifiers = ProductRestClients.HTTP_CLIENT, primary = false)
 public interface ProductRestClients {
 
+    String HTTP_CLIENT = "produitServiceHttpClient";
+
     @GetMapping("/api/products/{id}")
     ProductDTO findProductById(@PathVariable("id") Long id);
 
+    // One round trip for the whole cart (ids in the body, unknown ids are simply absent)
+    @PostMapping("/api/products/batch")
+    List<ProductDTO> findProductsByIds(@RequestBody Collection<Long> ids);
+
+    // Atomic stock reservation: all items or a 409 Conflict
+    @PostMapping("/api/products/reservations")
+    StockReservationDTO reserveStock(@RequestBody StockReservationDTO reservation);
+
+    @PostMapping("/api/products/reservations/{id}/confirm")
+    StockReservationDTO confirmReservation(@PathVariable("id") String id);
+
+    @PostMapping("/api/products/reservations/{id}/release")
+    StockReservationDTO releaseReservation(@PathVariable("id") String id);
+
 }
@@ -0,0 +1,246 @@
+package org.example.orderservice.feign;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.Model.StockReservationDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * {@link ProductRestClients} as injected everywhere: the Feign client behind a bulkhead and a
+ * circuit breaker, so a slow or failing produit-service costs a fast error instead of a request thread.
+ * <ul>
+ *     <li>bulkhead: at most {@code product.client.bulkhead.max-concurrent-calls} calls in flight,
+ *     the others are rejected after {@code product.client.bulkhead.max-wait}</li>
+ *     <li>circuit breaker: opens when too many of the last calls failed or were slower than
+ *     {@code product.client.circuit-breaker.slow-call-duration}, then rejects every call for
+ *     {@code product.client.circuit-breaker.wait-in-open} before letting a few probes through.
+ *     4xx answers (unknown product, stock conflict) are not failures.</li>
+ * </ul>
+ * Both run on the calling thread (semaphore, no time limiter), so the relayed Authorization and
+ * the trace context stay in place; the time limit is the Feign read timeout.
+ * <p>
+ * Confirming or releasing a reservation settles stock already taken: those calls skip the breaker
+ * and the shared bulkhead, whose rejections are meant for new work. They have their own bulkhead
+ * ({@code product.client.completion.bulkhead.*}, waiting for a permit) and are retried on
+ * outages ({@code product.client.completion.retry.*}), replaying them being a no-op in produit-service.
+ * <p>
+ * With {@code product.client.fallback.enabled}, product lookups that are rejected or fail are
+ * answered with the last version seen of each product, when all of them are known. Stock
+ * reservations never fall back.
+ */
+@Component
+@Primary
+@Slf4j
+public class ResilientProductRestClients implements ProductRestClients, MeterBinder {
+
+    static final String NAME = "produit-service";
+    // Confirmations and releases of reservations
+    static final String COMPLETION = NAME + "-completion";
+
+    private final ProductRestClients delegate;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final RetryRegistry retries;
+    private final Bulkhead completionBulkhead;
+    private final Retry completionRetry;
+    private final boolean fallbackEnabled;
+    private final Cache<Long, ProductDTO> lastKnown;
+    private final LongAdder fallbacks = new LongAdder();
+
+    @Autowired
+    public ResilientProductRestClients(
+            @Qualifier(ProductRestClients.HTTP_CLIENT) ProductRestClients delegate,
+            @Value("${product.client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${product.client.circuit-breaker.slow-call-duration:1500ms}") Duration slowCallDuration,
+            @Value("${product.client.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+            @Value("${product.client.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${product.client.circuit-breaker.wait-in-open:10s}") Duration waitInOpen,
+            @Value("${product.client.bulkhead.max-concurrent-calls:40}") int maxConcurrentCalls,
+            @Value("${product.client.bulkhead.max-wait:0ms}") Duration maxWait,
+            @Value("${product.client.completion.bulkhead.max-concurrent-calls:10}") int completionMaxConcurrentCalls,
+            @Value("${product.client.completion.bulkhead.max-wait:1s}") Duration completionMaxWait,
+            @Value("${product.client.completion.retry.max-attempts:3}") int completionMaxAttempts,
+            @Value("${product.client.completion.retry.initial-interval:200ms}") Duration completionRetryInterval,
+            @Value("${product.client.fallback.enabled:false}") boolean fallbackEnabled,
+            @Value("${product.client.fallback.maximum-size:10000}") long fallbackMaximumSize) {
+        this(delegate, CircuitBreakerConfig.custom()
+                        .failureRateThreshold(failureRateThreshold)
+                        .slowCallRateThreshold(failureRateThreshold)
+                        .slowCallDurationThreshold(slowCallDuration)
+                        .slidingWindowSize(slidingWindowSize)
+                        .minimumNumberOfCalls(minimumCalls)
+                        .waitDurationInOpenState(waitInOpen)
+                        .permittedNumberOfCallsInHalfOpenState(5)
+                        .build(),
+                BulkheadConfig.custom()
+                        .maxConcurrentCalls(maxConcurrentCalls)
+                        .maxWaitDuration(maxWait)
+                        .build(),
+                BulkheadConfig.custom()
+                        .maxConcurrentCalls(completionMaxConcurrentCalls)
+                        .maxWaitDuration(completionMaxWait)
+                        .build(),
+                RetryConfig.custom()
+                        .maxAttempts(completionMaxAttempts)
+                        .intervalFunction(IntervalFunction.ofExponentialBackoff(completionRetryInterval, 2))
+                        .build(),
+                fallbackEnabled, fallbackMaximumSize);
+    }
+
+    ResilientProductRestClients(ProductRestClients delegate, CircuitBreakerConfig circuitBreakerConfig,
+                                BulkheadConfig bulkheadConfig, BulkheadConfig completionBulkheadConfig,
+                                RetryConfig completionRetryConfig, boolean fallbackEnabled, long fallbackMaximumSize) {
+        this.delegate = delegate;
+        // Client errors say nothing about produit-service's health, and a full bulkhead is our own limit
+        this.circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.from(circuitBreakerConfig)
+                .ignoreExceptions(FeignException.FeignClientException.class, BulkheadFullException.class)
+                .build());
+        this.bulkheads = BulkheadRegistry.of(bulkheadConfig);
+        this.circuitBreaker = circuitBreakers.circuitBreaker(NAME);
+        this.bulkhead = bulkheads.bulkhead(NAME);
+        this.completionBulkhead = bulkheads.bulkhead(COMPLETION, completionBulkheadConfig);
+        this.retries = RetryRegistry.of(RetryConfig.from(completionRetryConfig)
+                .retryOnException(e -> e instanceof RuntimeException runtime && isUnavailable(runtime))
+                .build());
+        this.completionRetry = retries.retry(COMPLETION);
+        this.fallbackEnabled = fallbackEnabled;
+        this.lastKnown = Caffeine.newBuilder().maximumSize(fallbackMaximumSize).build();
+    }
+
+    @Override
+    public ProductDTO findProductById(Long id) {
+        try {
+            ProductDTO product = call(() -> delegate.findProductById(id));
+            remember(Collections.singletonList(product));
+            return product;
+        } catch (RuntimeException e) {
+            ProductDTO known = fallbackEnabled && isUnavailable(e) ? lastKnown.getIfPresent(id) : null;
+            if (known == null) {
+                throw e;
+            }
+            fellBack(List.of(id), e);
+            return known;
+        }
+    }
+
+    @Override
+    public List<ProductDTO> findProductsByIds(Collection<Long> ids) {
+        try {
+            List<ProductDTO> products = call(() -> delegate.findProductsByIds(ids));
+            remember(products);
+            return products;
+        } catch (RuntimeException e) {
+            if (!fallbackEnabled || !isUnavailable(e)) {
+                throw e;
+            }
+            // All or nothing: a partial answer would look like deleted products
+            List<ProductDTO> known = new ArrayList<>();
+            for (Long id : new LinkedHashSet<>(ids)) {
+                ProductDTO product = lastKnown.getIfPresent(id);
+                if (product == null) {
+                    throw e;
+                }
+                known.add(product);
+            }
+            fellBack(ids, e);
+            return known;
+        }
+    }
+
+    @Override
+    public StockReservationDTO reserveStock(StockReservationDTO reservation) {
+        return call(() -> delegate.reserveStock(reservation));
+    }
+
+    @Override
+    public StockReservationDTO confirmReservation(String id) {
+        return complete(() -> delegate.confirmReservation(id));
+    }
+
+    @Override
+    public StockReservationDTO releaseReservation(String id) {
+        return complete(() -> delegate.releaseReservation(id));
+    }
+
+    CircuitBreaker.State state() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // resilience4j_circuitbreaker_state/calls/... and resilience4j_bulkhead_available_concurrent_calls
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(registry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(registry);
+        TaggedRetryMetrics.ofRetryRegistry(retries).bindTo(registry);
+        FunctionCounter.builder("product.client.fallbacks", fallbacks, LongAdder::sum)
+                .description("Product lookups answered with last-known data while produit-service was unavailable")
+                .register(registry);
+    }
+
+    private <T> T call(Supplier<T> call) {
+        // Breaker outside: once open, calls are rejected without taking a bulkhead permit
+        return circuitBreaker.executeSupplier(Bulkhead.decorateSupplier(bulkhead, call));
+    }
+
+    // Each attempt takes a permit of the completion bulkhead, released while waiting for the next one
+    private <T> T complete(Supplier<T> call) {
+        return Retry.decorateSupplier(completionRetry, Bulkhead.decorateSupplier(completionBulkhead, call)).get();
+    }
+
+    private void remember(List<ProductDTO> products) {
+        if (fallbackEnabled) {
+            for (ProductDTO product : products) {
+                if (product != null && product.getId() != null) {
+                    lastKnown.put(product.getId(), product);
+                }
+            }
+        }
+    }
+
+    // Rejected by the breaker or the bulkhead, timeouts, connection errors and 5xx; not 4xx
+    private static boolean isUnavailable(RuntimeException e) {
+        return e instanceof CallNotPermittedException || e instanceof BulkheadFullException
+                || (e instanceof FeignException && !(e instanceof FeignException.FeignClientException));
+    }
+
+    private void fellBack(Collection<Long> ids, RuntimeException cause) {
+        fallbacks.increment();
+        log.warn("produit-service unavailable ({}), last known data served for {}", cause.getMessage(), ids);
+    }
+}
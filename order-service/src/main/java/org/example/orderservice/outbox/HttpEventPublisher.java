@@ -0,0 +1,32 @@
+package org.example.orderservice.outbox;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+// POSTs each batch as a JSON array to outbox.relay.http.url; any non-2xx answer fails the batch
+public class HttpEventPublisher implements OrderEventPublisher {
+    private final RestClient restClient;
+    private final String url;
+
+    public HttpEventPublisher(RestClient.Builder builder, String url, Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        this.restClient = builder.requestFactory(requestFactory).build();
+        this.url = url;
+    }
+
+    @Override
+    public void publish(List<OrderEventMessage> batch) {
+        restClient.post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(batch)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
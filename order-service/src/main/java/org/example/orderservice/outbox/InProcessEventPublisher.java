@@ -0,0 +1,20 @@
+package org.example.orderservice.outbox;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+// Default publisher: every event becomes a Spring application event (@EventListener OrderEventMessage).
+// A listener that throws fails the batch, which is then retried
+public class InProcessEventPublisher implements OrderEventPublisher {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public InProcessEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @Override
+    public void publish(List<OrderEventMessage> batch) {
+        batch.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.orderservice.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+// What consumers receive; eventId is stable across redeliveries, use it to drop duplicates
+public record OrderEventMessage(Long eventId, String type, Long orderId, Instant occurredAt,
+                                @JsonRawValue String payload) {
+
+    static OrderEventMessage of(OutboxEvent event) {
+        return new OrderEventMessage(event.getId(), event.getType(), event.getOrderId(), event.getCreatedAt(),
+                event.getPayload());
+    }
+}
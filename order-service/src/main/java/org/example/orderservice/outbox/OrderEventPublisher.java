@@ -0,0 +1,13 @@
+package org.example.orderservice.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of the order events relayed from the outbox (broker, HTTP endpoint, in-process listeners).
+ * {@link #publish} returns once the whole batch is accepted and throws otherwise: the batch is then
+ * sent again later, so consumers must tolerate duplicates (delivery is at-least-once).
+ */
+public interface OrderEventPublisher {
+
+    void publish(List<OrderEventMessage> batch);
+}
@@ -0,0 +1,38 @@
+package org.example.orderservice.outbox;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Order event waiting to be published, written in the same transaction as the order itself
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_pending", columnList = "publishedAt, id"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    // No id blocks cached per instance, so ids follow the order in which events are written
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 1)
+    private Long id;
+    // OrderCreated, OrderStatusChanged, OrderDeleted
+    private String type;
+    private Long orderId;
+    @Column(columnDefinition = "text")
+    private String payload;
+    private Instant createdAt;
+    // null until the relay got an acknowledgement from the publisher
+    private Instant publishedAt;
+    private int attempts;
+
+    public OutboxEvent(String type, Long orderId, String payload, Instant createdAt) {
+        this.type = type;
+        this.orderId = orderId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.orderservice.outbox;
+
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+// outbox.relay.publisher is read at startup, not as a bean condition: the AOT build would fix it
+@Configuration
+// Serialized by Jackson for the http publisher (AOT/native builds need the binding hints)
+@RegisterReflectionForBinding(OrderEventMessage.class)
+public class OutboxPublisherConfig {
+
+    @Bean
+    public OrderEventPublisher orderEventPublisher(@Value("${outbox.relay.publisher:in-process}") String publisher,
+                                                   ApplicationEventPublisher applicationEventPublisher,
+                                                   RestClient.Builder restClientBuilder,
+                                                   Environment environment) {
+        return switch (publisher) {
+            case "in-process" -> new InProcessEventPublisher(applicationEventPublisher);
+            case "http" -> new HttpEventPublisher(restClientBuilder,
+                    environment.getRequiredProperty("outbox.relay.http.url"),
+                    environment.getProperty("outbox.relay.http.timeout", Duration.class, Duration.ofSeconds(5)));
+            default -> throw new IllegalArgumentException("Unknown outbox.relay.publisher: " + publisher);
+        };
+    }
+}
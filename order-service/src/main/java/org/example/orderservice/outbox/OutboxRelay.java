@@ -0,0 +1,188 @@
+package org.example.orderservice.outbox;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background publisher of the outbox. Pending events are read in id order, {@code outbox.relay.batch-size}
+ * at a time, and only marked published once the {@link OrderEventPublisher} accepted the whole batch:
+ * a crash or a refused batch means the same events are sent again (at-least-once).
+ * <p>
+ * Back-pressure: the next batch is only read after the previous one was acknowledged, and a failing
+ * publisher is retried with an exponential backoff (up to {@code outbox.relay.max-backoff}) instead of
+ * being hammered; events simply accumulate in the table meanwhile. Batch rows are locked with
+ * SKIP LOCKED, so several order-service instances can relay without sending the same batch twice.
+ */
+@Component
+@Slf4j
+public class OutboxRelay implements MeterBinder {
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderEventPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock = Clock.systemUTC();
+    private final boolean enabled;
+    private final int batchSize;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Duration retention;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile int consecutiveFailures;
+    private volatile long retryAt = System.nanoTime();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OrderEventPublisher publisher,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.initial-backoff:1s}") Duration initialBackoff,
+                       @Value("${outbox.relay.max-backoff:30s}") Duration maxBackoff,
+                       @Value("${outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.publisher = publisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = Math.max(initialBackoff.toNanos(), maxBackoff.toNanos());
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public void scheduledRelay() {
+        if (enabled) {
+            relayPending();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup.interval-ms:3600000}")
+    public void scheduledCleanup() {
+        if (enabled) {
+            purgePublished();
+        }
+    }
+
+    // Drains the outbox batch after batch; stops at the first failure. Returns the number of events published
+    public int relayPending() {
+        if (System.nanoTime() - retryAt < 0) {
+            return 0;
+        }
+        int relayed = 0;
+        while (true) {
+            int sent = relayBatch();
+            if (sent < 0) {
+                return relayed;
+            }
+            relayed += sent;
+            if (sent < batchSize) {
+                return relayed;
+            }
+        }
+    }
+
+    private int relayBatch() {
+        List<Long> ids = new ArrayList<>();
+        try {
+            int sent = transactionTemplate.execute(status -> {
+                List<OutboxEvent> batch = outboxEventRepository.lockPendingBatch(Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    return 0;
+                }
+                batch.forEach(event -> ids.add(event.getId()));
+                publisher.publish(batch.stream().map(OrderEventMessage::of).toList());
+                outboxEventRepository.markPublished(ids, clock.instant());
+                return batch.size();
+            });
+            published.addAndGet(sent);
+            consecutiveFailures = 0;
+            return sent;
+        } catch (RuntimeException e) {
+            onFailure(ids, e);
+            return -1;
+        }
+    }
+
+    private void onFailure(List<Long> ids, RuntimeException e) {
+        failedBatches.incrementAndGet();
+        int failures = ++consecutiveFailures;
+        long backoff = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(failures - 1, 20));
+        retryAt = System.nanoTime() + backoff;
+        log.warn("Outbox: batch of {} events not published ({}), retrying in {} ms", ids.size(),
+                NestedExceptionUtils.getMostSpecificCause(e).getMessage(), TimeUnit.NANOSECONDS.toMillis(backoff));
+        if (!ids.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> outboxEventRepository.incrementAttempts(ids));
+            } catch (RuntimeException ignored) {
+                // attempts is informative only, the events are still pending
+            }
+        }
+    }
+
+    // Published events are kept for outbox.retention (replay, debugging), then deleted
+    public int purgePublished() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(clock.instant().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Outbox: {} published events purged", deleted);
+        }
+        return deleted == null ? 0 : deleted;
+    }
+
+    public long pending() {
+        return outboxEventRepository.countByPublishedAtIsNull();
+    }
+
+    // Age of the oldest event not yet published, 0 when the outbox is drained
+    public Duration lag() {
+        return outboxEventRepository.findFirstByPublishedAtIsNullOrderByIdAsc()
+                .map(event -> Duration.between(event.getCreatedAt(), clock.instant()))
+                .filter(lag -> !lag.isNegative())
+                .orElse(Duration.ZERO);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending());
+        stats.put("lagMillis", lag().toMillis());
+        stats.put("published", published.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("outbox.pending", this, OutboxRelay::pending)
+                .description("Order events not published yet")
+                .register(registry);
+        TimeGauge.builder("outbox.lag", this, TimeUnit.MILLISECONDS, relay -> relay.lag().toMillis())
+                .description("Age of the oldest order event not published yet")
+                .register(registry);
+        FunctionCounter.builder("outbox.published", published, AtomicLong::get)
+                .description("Order events acknowledged by the publisher")
+                .register(registry);
+        FunctionCounter.builder("outbox.publish.failures", failedBatches, AtomicLong::get)
+                .description("Batches refused by the publisher, retried later")
+                .register(registry);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.orderservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.util.Map;
+
+/**
+ * Records an order event in the outbox table. It must join the transaction that changes the
+ * order: the event is committed with the order or not at all, and publishing happens later in
+ * {@link OutboxRelay}, outside the request.
+ */
+@Component
+public class OutboxWriter {
+    public static final String ORDER_CREATED = "OrderCreated";
+    public static final String ORDER_STATUS_CHANGED = "OrderStatusChanged";
+    public static final String ORDER_DELETED = "OrderDeleted";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final Clock clock = Clock.systemUTC();
+
+    public OutboxWriter(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String type, Long orderId, Map<String, ?> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Event " + type + " of order " + orderId + " cannot be serialized", e);
+        }
+        outboxEventRepository.save(new OutboxEvent(type, orderId, json, clock.instant()));
+    }
+}
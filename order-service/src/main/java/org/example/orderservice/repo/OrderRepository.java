@@ -1,10 +1,39 @@
 package org.example.orderservice.repo;
 
+import jakarta.persistence.QueryHint;
 import org.example.orderservice.entities.Order;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+// Read queries fetch orderItemsList in the same statement (entity graph) to avoid one items query per order
 public interface OrderRepository extends JpaRepository<Order,Long> {
-    List<Order> findByCustomerId(String customerId);
+    // Keyset pagination, newest orders first (ids grow with date_commande).
+    // The page is chosen on ids only, then loaded with its items: a fetch join cannot be limited in SQL.
+    @Query("select o.orderId from Order o order by o.orderId desc")
+    List<Long> findPageIds(Pageable pageable);
+
+    @Query("select o.orderId from Order o where o.orderId < :cursor order by o.orderId desc")
+    List<Long> findPageIdsBefore(@Param("cursor") long cursor, Pageable pageable);
+
+    @EntityGraph(attributePaths = "orderItemsList")
+    @Query("select o from Order o where o.orderId in :ids order by o.orderId desc")
+    List<Order> findWithItemsByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    // Export: rows are fetched from the cursor in chunks instead of being loaded all at once
+    @EntityGraph(attributePaths = "orderItemsList")
+    @Query("select o from Order o order by o.orderId")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Order> streamAll();
 }
@@ -0,0 +1,33 @@
+package org.example.orderservice.reservation;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Stock reservation of a committed order, until produit-service acknowledged its confirmation.
+// Written in the same transaction as the order: a committed order always has a confirmed
+// reservation or a row here.
+@Entity
+@Table(name = "reservation_confirmation",
+        indexes = @Index(name = "idx_reservation_confirmation_next_attempt", columnList = "nextAttemptAt"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class ReservationConfirmation {
+    @Id
+    private String reservationId;
+    private Long orderId;
+    private Instant createdAt;
+    private Instant nextAttemptAt;
+    private int attempts;
+
+    public ReservationConfirmation(String reservationId, Long orderId, Instant createdAt, Instant nextAttemptAt) {
+        this.reservationId = reservationId;
+        this.orderId = orderId;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.orderservice.reservation;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ReservationConfirmationRepository extends JpaRepository<ReservationConfirmation, String> {
+
+    // Due confirmations, oldest first. Rows locked by another instance are skipped (lock timeout -2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c from ReservationConfirmation c where c.nextAttemptAt <= :now order by c.nextAttemptAt")
+    List<ReservationConfirmation> lockDue(@Param("now") Instant now, Limit limit);
+
+    // Called after the order's commit, whose resources are still bound to the thread: a new transaction
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("delete from ReservationConfirmation c where c.reservationId = :reservationId")
+    int deleteAfterCommit(@Param("reservationId") String reservationId);
+}
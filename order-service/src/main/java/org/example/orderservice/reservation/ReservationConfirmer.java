@@ -0,0 +1,160 @@
+package org.example.orderservice.reservation;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.feign.ProductRestClients;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Confirms the stock reservations of committed orders. The order's transaction records a
+ * {@link ReservationConfirmation}; right after the commit the reservation is confirmed once and the
+ * row deleted. When produit-service cannot be reached, the row stays and a background job retries
+ * it with an exponential backoff (up to {@code reservation.confirmation.max-backoff}), well within
+ * the reservation TTL of produit-service ({@code stock.reservation.ttl}, 15 minutes), so the expiry
+ * sweep does not give the stock of a committed order back. Due rows are locked with SKIP LOCKED:
+ * several order-service instances can run the job.
+ */
+@Component
+@Slf4j
+public class ReservationConfirmer {
+    private final ReservationConfirmationRepository confirmationRepository;
+    private final ProductRestClients productRestClient;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock = Clock.systemUTC();
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter confirmed;
+    private final Counter retried;
+    private final Counter lost;
+
+    public ReservationConfirmer(ReservationConfirmationRepository confirmationRepository,
+                                ProductRestClients productRestClient,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${reservation.confirmation.enabled:true}") boolean enabled,
+                                @Value("${reservation.confirmation.batch-size:50}") int batchSize,
+                                @Value("${reservation.confirmation.initial-backoff:5s}") Duration initialBackoff,
+                                @Value("${reservation.confirmation.max-backoff:1m}") Duration maxBackoff) {
+        this.confirmationRepository = confirmationRepository;
+        this.productRestClient = productRestClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff.compareTo(initialBackoff) < 0 ? initialBackoff : maxBackoff;
+        this.confirmed = confirmationCounter(meterRegistry, "confirmed");
+        this.retried = confirmationCounter(meterRegistry, "retried");
+        this.lost = confirmationCounter(meterRegistry, "lost");
+        Gauge.builder("stock.reservation.confirmations.pending", confirmationRepository, ReservationConfirmationRepository::count)
+                .description("Reservations of committed orders not confirmed yet")
+                .register(meterRegistry);
+    }
+
+    private static Counter confirmationCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("stock.reservation.confirmations")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // In the order's transaction: committed with the order or not at all. First retry after initial-backoff,
+    // the confirmation right after the commit normally deletes it before
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String reservationId, Long orderId) {
+        Instant now = clock.instant();
+        confirmationRepository.save(new ReservationConfirmation(reservationId, orderId, now, now.plus(initialBackoff)));
+    }
+
+    // After the order's commit; a failure is left to the background job
+    public void confirmAfterCommit(String reservationId) {
+        if (confirm(reservationId) == Outcome.RETRY) {
+            log.warn("Reservation {} of a committed order not confirmed yet, retried in the background", reservationId);
+            return;
+        }
+        try {
+            confirmationRepository.deleteAfterCommit(reservationId);
+        } catch (RuntimeException e) {
+            // The job confirms it again: a replayed confirmation is a no-op in produit-service
+            log.warn("Confirmation of reservation {} not cleared: {}", reservationId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.confirmation.interval-ms:5000}")
+    public void scheduledConfirm() {
+        if (enabled) {
+            confirmPending();
+        }
+    }
+
+    // Confirms the due reservations batch after batch. Returns the number of rows settled (confirmed or lost)
+    public int confirmPending() {
+        int settled = 0;
+        while (true) {
+            int[] batch = transactionTemplate.execute(status -> confirmBatch());
+            settled += batch[1];
+            if (batch[0] < batchSize) {
+                return settled;
+            }
+        }
+    }
+
+    // {rows read, rows settled}; the rows still failing are pushed back and not read again by this run
+    private int[] confirmBatch() {
+        Instant now = clock.instant();
+        List<ReservationConfirmation> due = confirmationRepository.lockDue(now, Limit.of(batchSize));
+        int settled = 0;
+        for (ReservationConfirmation confirmation : due) {
+            if (confirm(confirmation.getReservationId()) == Outcome.RETRY) {
+                int attempts = confirmation.getAttempts() + 1;
+                confirmation.setAttempts(attempts);
+                confirmation.setNextAttemptAt(now.plus(backoff(attempts)));
+            } else {
+                confirmationRepository.delete(confirmation);
+                settled++;
+            }
+        }
+        return new int[]{due.size(), settled};
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private Outcome confirm(String reservationId) {
+        try {
+            productRestClient.confirmReservation(reservationId);
+            confirmed.increment();
+            return Outcome.CONFIRMED;
+        } catch (FeignException.Conflict | FeignException.NotFound e) {
+            // Released (expired) before the confirmation got through: retrying cannot help, the order needs a look
+            lost.increment();
+            log.error("Reservation {} of a committed order can no longer be confirmed: {}", reservationId, e.getMessage());
+            return Outcome.LOST;
+        } catch (RuntimeException e) {
+            retried.increment();
+            log.debug("Confirmation of reservation {} failed: {}", reservationId, e.getMessage());
+            return Outcome.RETRY;
+        }
+    }
+
+    private enum Outcome {
+        CONFIRMED, RETRY, LOST
+    }
+}
@@ -1,22 +1,17 @@
 package org.example.orderservice.security;
 
+import org.example.security.InternalIdentityFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
-
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -29,30 +24,49 @@ public class SecurityConfig {
                 .cors(cors -> cors.disable())                .authorizeHttpRequests(auth -> auth
                         // Publicly accessible endpoints (Swagger)
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**").permitAll()
+                        // Actuator port: open, it is not published. Service port: the probes only, no metrics
+                        .requestMatchers(onManagementPort()).permitAll()
+                        .requestMatchers("/actuator/health/**", "/livez", "/readyz").permitAll()
                         // All other requests require authentication
                         .anyRequest().authenticated()
                 )
-                // Use Keycloak as the Resource Server
+                // Use Keycloak as the Resource Server (JwtDecoder bean of security-spring-boot-starter)
                 .oauth2ResourceServer(oauth2 -> oauth2
                         .jwt(jwt -> jwt
-                                .decoder(jwtDecoder()) // 1. Utilise votre décodeur (fixe l'erreur 'iss')
-                                .jwtAuthenticationConverter(jwtAuthConverter()))
+                                .jwtAuthenticationConverter(jwtAuthConverter))
                 );
 
+        // Identity already verified and signed by the gateway: no second RSA check
+        if (internalIdentityEnabled) {
+            http.addFilterBefore(new InternalIdentityFilter(internalIdentitySecret, jwtAuthConverter),
+                    BearerTokenAuthenticationFilter.class);
+            http.oauth2ResourceServer(oauth2 -> oauth2.bearerTokenResolver(InternalIdentityFilter.bearerTokenResolver()));
+        }
+
         return http.build();
     }
 
-    @Bean
-    public JwtDecoder jwtDecoder() {
-        // CHANGE TO: Use ms-keycloak (container can reach this)
-        String jwkSetUri = "http://ms-keycloak:9090/realms/mini-project/protocol/openid-connect/certs";
+    private RequestMatcher onManagementPort() {
+        return request -> managementPort > 0 && managementPort != serverPort
+                && request.getLocalPort() == managementPort;
+    }
 
-        System.out.println("Product Service JWT Decoder using: " + jwkSetUri);
+    // Actuator port (management.server.port), -1 when actuator shares the service port
+    @Value("${management.server.port:-1}")
+    private int managementPort;
 
-        return NimbusJwtDecoder
-                .withJwkSetUri(jwkSetUri)
-                .build();
-    }
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${security.internal-identity.enabled:false}")
+    private boolean internalIdentityEnabled;
+
+    @Value("${security.internal-identity.secret:}")
+    private String internalIdentitySecret;
+
+    // Reads "realm_access.roles" from Keycloak tokens (security-spring-boot-starter)
+    @Autowired
+    private JwtAuthenticationConverter jwtAuthConverter;
 
 //    @Bean
 //    public CorsConfigurationSource corsConfigurationSource() {
@@ -67,29 +81,4 @@ public class SecurityConfig {
 //        source.registerCorsConfiguration("/**", config);
 //        return source;
 //    }
-
-    // This method tells Spring how to read "realm_access.roles" from Keycloak
-    @Bean
-    public JwtAuthenticationConverter jwtAuthConverter() {
-        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
-
-            // 1. Standard scopes (optional)
-            var defaultConverter = new JwtGrantedAuthoritiesConverter();
-            Collection<GrantedAuthority> authorities = defaultConverter.convert(jwt);
-
-            // 2. Extract Keycloak REALM ROLES
-            Map<String, Object> realmAccess = jwt.getClaim("realm_access");
-            if (realmAccess != null && realmAccess.containsKey("roles")) {
-                List<String> roles = (List<String>) realmAccess.get("roles");
-
-                // Convert ["ADMIN"] to ["ROLE_ADMIN"]
-                authorities.addAll(roles.stream()
-                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                        .collect(Collectors.toList()));
-            }
-            return authorities;
-        });
-        return converter;
-    }
 }
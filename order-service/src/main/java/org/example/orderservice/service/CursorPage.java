@@ -0,0 +1,7 @@
+package org.example.orderservice.service;
+
+import java.util.List;
+
+// One page of a keyset listing; nextCursor is null on the last page
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+}
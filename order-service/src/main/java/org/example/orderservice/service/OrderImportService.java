@@ -0,0 +1,144 @@
+package org.example.orderservice.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.Model.BulkImportReport;
+import org.example.orderservice.entities.Order;
+import org.example.orderservice.entities.OrderItems;
+import org.example.orderservice.summary.OrderSummaryWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Bulk import of existing orders (migration, replay). Orders are stored as given: no product
+ * lookup and no stock reservation. Each chunk of {@code orders.bulk.chunk-size} orders is one
+ * transaction whose inserts go out as JDBC batches (sequence ids, hibernate.jdbc.batch_size).
+ * A chunk the database refuses is replayed order by order to report the faulty records only.
+ */
+@Service
+@Slf4j
+public class OrderImportService {
+    private final EntityManager entityManager;
+    private final OrderSummaryWriter orderSummaryWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public OrderImportService(EntityManager entityManager, OrderSummaryWriter orderSummaryWriter,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${orders.bulk.chunk-size:500}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.orderSummaryWriter = orderSummaryWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public BulkImportReport importOrders(List<Order> orders) {
+        BulkImportReport report = new BulkImportReport();
+        report.setReceived(orders.size());
+        long start = System.nanoTime();
+
+        for (int from = 0, chunk = 0; from < orders.size(); from += chunkSize, chunk++) {
+            int to = Math.min(from + chunkSize, orders.size());
+            List<Integer> valid = new ArrayList<>();
+            for (int index = from; index < to; index++) {
+                String error = validate(orders.get(index));
+                if (error == null) {
+                    valid.add(index);
+                } else {
+                    report.getErrors().add(new BulkImportReport.RecordError(index, error));
+                }
+            }
+
+            long chunkStart = System.nanoTime();
+            int imported = persistChunk(orders, valid, report);
+            long chunkNanos = System.nanoTime() - chunkStart;
+            report.getChunks().add(new BulkImportReport.ChunkReport(chunk, to - from, imported,
+                    chunkNanos / 1_000_000, imported * 1e9 / Math.max(1, chunkNanos)));
+            report.setImported(report.getImported() + imported);
+        }
+
+        report.setFailed(report.getReceived() - report.getImported());
+        report.setMillis((System.nanoTime() - start) / 1_000_000);
+        log.info("Bulk import: {} of {} orders imported in {} ms", report.getImported(), report.getReceived(),
+                report.getMillis());
+        return report;
+    }
+
+    private int persistChunk(List<Order> orders, List<Integer> indexes, BulkImportReport report) {
+        if (indexes.isEmpty()) {
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> indexes.forEach(index -> persist(orders.get(index))));
+            return indexes.size();
+        } catch (RuntimeException chunkError) {
+            log.warn("Bulk import: chunk starting at {} rejected ({}), retrying order by order",
+                    indexes.get(0), NestedExceptionUtils.getMostSpecificCause(chunkError).getMessage());
+        }
+
+        int imported = 0;
+        for (Integer index : indexes) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(orders.get(index)));
+                imported++;
+            } catch (RuntimeException e) {
+                report.getErrors().add(new BulkImportReport.RecordError(index,
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+        }
+        return imported;
+    }
+
+    // Ids always come from the sequences (also on the order-by-order retry of a rolled back chunk)
+    private void persist(Order order) {
+        order.setOrderId(0);
+        if (order.getDate_commande() == null) {
+            order.setDate_commande(new Date());
+        }
+        if (order.getStatut() == null) {
+            order.setStatut("CREATED");
+        }
+        double total = 0;
+        for (OrderItems item : order.getOrderItemsList()) {
+            item.setId(null);
+            item.setOrder(order);
+            total += item.getPrice() * item.getQuantity();
+        }
+        if (order.getMontant_total() == 0) {
+            order.setMontant_total(total);
+        }
+        entityManager.persist(order);
+        orderSummaryWriter.created(order);
+    }
+
+    private static String validate(Order order) {
+        if (order == null) {
+            return "Order is null";
+        }
+        if (order.getCustomerId() == null || order.getCustomerId().isBlank()) {
+            return "customerId is required";
+        }
+        if (order.getOrderItemsList() == null) {
+            order.setOrderItemsList(new ArrayList<>());
+        }
+        for (OrderItems item : order.getOrderItemsList()) {
+            if (item == null || item.getProductId() == null) {
+                return "Every item needs a productId";
+            }
+            if (item.getQuantity() <= 0) {
+                return "Quantity must be positive for product " + item.getProductId();
+            }
+            if (item.getPrice() < 0) {
+                return "Price must not be negative for product " + item.getProductId();
+            }
+        }
+        return null;
+    }
+}
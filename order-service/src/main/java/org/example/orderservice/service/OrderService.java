@@ -1,27 +1,82 @@
 package org.example.orderservice.service;
 
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.Model.ReservationItemDTO;
+import org.example.orderservice.Model.StockReservationDTO;
 import org.example.orderservice.entities.Order;
 import org.example.orderservice.entities.OrderItems;
+import org.example.orderservice.cache.ProductCache;
 import org.example.orderservice.feign.ProductRestClients;
+import org.example.orderservice.outbox.OutboxWriter;
 import org.example.orderservice.repo.OrderRepository;
+import org.example.orderservice.reservation.ReservationConfirmer;
+import org.example.orderservice.summary.OrderSummary;
+import org.example.orderservice.summary.OrderSummaryRepository;
+import org.example.orderservice.summary.OrderSummaryWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 @Transactional
 public class OrderService {
     private final OrderRepository orderRepository;
+    private final ProductCache productCache;
     private final ProductRestClients productRestClient;
+    private final EntityManager entityManager;
+    private final OutboxWriter outboxWriter;
+    private final OrderSummaryWriter orderSummaryWriter;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ReservationConfirmer reservationConfirmer;
+    private final int maxPageSize;
+    private final Counter ordersCreated;
+    // reason is one of a fixed set of values, never a product id or a message
+    private final Counter rejectedOutOfStock;
+    private final Counter rejectedUnknownProduct;
 
-    public OrderService(OrderRepository orderRepository, ProductRestClients productRestClient) {
+    public OrderService(OrderRepository orderRepository, ProductCache productCache,
+                        ProductRestClients productRestClient, EntityManager entityManager,
+                        OutboxWriter outboxWriter, OrderSummaryWriter orderSummaryWriter,
+                        OrderSummaryRepository orderSummaryRepository, ReservationConfirmer reservationConfirmer,
+                        MeterRegistry meterRegistry, @Value("${pagination.max-page-size:500}") int maxPageSize) {
         this.orderRepository = orderRepository;
+        this.productCache = productCache;
         this.productRestClient = productRestClient;
+        this.entityManager = entityManager;
+        this.outboxWriter = outboxWriter;
+        this.orderSummaryWriter = orderSummaryWriter;
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.reservationConfirmer = reservationConfirmer;
+        this.maxPageSize = maxPageSize;
+        this.ordersCreated = Counter.builder("orders.created").register(meterRegistry);
+        this.rejectedOutOfStock = Counter.builder("orders.rejected").tag("reason", "stock").register(meterRegistry);
+        this.rejectedUnknownProduct = Counter.builder("orders.rejected").tag("reason", "product_not_found")
+                .register(meterRegistry);
     }
 
     // --- CREATE ---
@@ -31,28 +86,188 @@ public class OrderService {
         order.setStatut("CREATED");
         double totalCalculated = 0;
 
+        if (order.getOrderItemsList() == null || order.getOrderItemsList().isEmpty()) {
+            order.setMontant_total(totalCalculated);
+            Order saved = orderRepository.save(order);
+            orderSummaryWriter.created(saved);
+            recordCreated(saved);
+            ordersCreated.increment();
+            return saved;
+        }
+
+        validateLines(order.getOrderItemsList());
+        Map<Long, ProductDTO> products = loadProducts(order.getOrderItemsList());
+
+        // Stock is checked against the total requested per product, not per line.
+        // Cached stock only rejects obvious cases early, the reservation below is the real check.
+        Map<Long, Integer> requested = new HashMap<>();
+        for (OrderItems item : order.getOrderItemsList()) {
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        requested.forEach((productId, quantity) -> {
+            ProductDTO product = products.get(productId);
+            if (product.getQuantity() < quantity) {
+                rejectedOutOfStock.increment();
+                throw new RuntimeException("Stock insuffisant: " + product.getName());
+            }
+        });
+
+        for (OrderItems item : order.getOrderItemsList()) {
+            ProductDTO product = products.get(item.getProductId());
+            item.setPrice(product.getPrice());
+            item.setOrder(order);
+            totalCalculated += (product.getPrice() * item.getQuantity());
+        }
+        order.setMontant_total(totalCalculated);
+
+        // Stock is taken atomically in produit-service, confirmed once the order is committed
+        // (retried by ReservationConfirmer until it goes through) and given back if the transaction
+        // rolls back (including a failed commit)
+        StockReservationDTO reservation = reserveStock(requested);
+        TransactionSynchronizationManager.registerSynchronization(new ReservationCompletion(reservation));
+        Order saved = orderRepository.saveAndFlush(order);
+        reservationConfirmer.record(reservation.getId(), saved.getOrderId());
+        orderSummaryWriter.created(saved);
+        recordCreated(saved);
+        ordersCreated.increment();
+        return saved;
+    }
+
+    private final class ReservationCompletion implements TransactionSynchronization {
+        private final StockReservationDTO reservation;
+
+        private ReservationCompletion(StockReservationDTO reservation) {
+            this.reservation = reservation;
+        }
+
+        @Override
+        public void afterCommit() {
+            reservationConfirmer.confirmAfterCommit(reservation.getId());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_ROLLED_BACK) {
+                releaseQuietly(reservation);
+            }
+        }
+    }
+
+    // A missing product id or quantity (null is read as 0) is the client's mistake, not a 500
+    private static void validateLines(List<OrderItems> items) {
+        for (int i = 0; i < items.size(); i++) {
+            OrderItems item = items.get(i);
+            if (item == null || item.getProductId() == null || item.getQuantity() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Invalid order line " + i + ": productId is required and quantity must be positive");
+            }
+        }
+    }
+
+    // Published after commit by the outbox relay, never from the request thread
+    private void recordCreated(Order order) {
+        List<Map<String, Object>> items = new ArrayList<>();
         if (order.getOrderItemsList() != null) {
             for (OrderItems item : order.getOrderItemsList()) {
-                ProductDTO product = productRestClient.findProductById(item.getProductId());
-                if (product.getQuantity() < item.getQuantity()) {
-                    throw new RuntimeException("Stock insuffisant: " + product.getName());
-                }
-                item.setPrice(product.getPrice());
-                item.setOrder(order);
-                totalCalculated += (product.getPrice() * item.getQuantity());
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("productId", item.getProductId());
+                line.put("quantity", item.getQuantity());
+                line.put("price", item.getPrice());
+                items.add(line);
             }
         }
-        order.setMontant_total(totalCalculated);
-        return orderRepository.save(order);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getOrderId());
+        payload.put("customerId", order.getCustomerId());
+        payload.put("status", order.getStatut());
+        payload.put("total", order.getMontant_total());
+        payload.put("items", items);
+        outboxWriter.record(OutboxWriter.ORDER_CREATED, order.getOrderId(), payload);
+    }
+
+    private StockReservationDTO reserveStock(Map<Long, Integer> requested) {
+        List<ReservationItemDTO> items = new ArrayList<>();
+        requested.forEach((productId, quantity) -> items.add(new ReservationItemDTO(productId, quantity)));
+        StockReservationDTO reservation = new StockReservationDTO();
+        reservation.setItems(items);
+        try {
+            return productRestClient.reserveStock(reservation);
+        } catch (FeignException.Conflict e) {
+            rejectedOutOfStock.increment();
+            throw new RuntimeException("Stock insuffisant", e);
+        }
+    }
+
+    private void releaseQuietly(StockReservationDTO reservation) {
+        try {
+            productRestClient.releaseReservation(reservation.getId());
+        } catch (RuntimeException e) {
+            // produit-service releases expired reservations on its own
+            log.warn("Reservation {} could not be released: {}", reservation.getId(), e.getMessage());
+        }
+    }
+
+    // Fetch every product of the cart (cache first, then parallel batch calls to produit-service)
+    private Map<Long, ProductDTO> loadProducts(List<OrderItems> items) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (OrderItems item : items) {
+            ids.add(item.getProductId());
+        }
+
+        Map<Long, ProductDTO> products = productCache.getProducts(ids);
+        for (Long id : ids) {
+            if (!products.containsKey(id)) {
+                rejectedUnknownProduct.increment();
+                throw new RuntimeException("Product not found: " + id);
+            }
+        }
+        return products;
     }
 
     // --- READ ---
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    // Keyset page of at most maxPageSize orders, newest first (2 statements whatever the page size)
+    public CursorPage<Order> getAllOrders(Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        Pageable firstRows = PageRequest.ofSize(pageSize + 1);
+        List<Long> ids = cursor == null
+                ? orderRepository.findPageIds(firstRows)
+                : orderRepository.findPageIdsBefore(cursor, firstRows);
+
+        Long nextCursor = null;
+        if (ids.size() > pageSize) {
+            ids = ids.subList(0, pageSize);
+            nextCursor = ids.get(pageSize - 1);
+        }
+        List<Order> orders = ids.isEmpty() ? List.of() : orderRepository.findWithItemsByOrderIdIn(ids);
+        return new CursorPage<>(orders, nextCursor);
+    }
+
+    // Export every order with flat memory: each order (and its items) is detached once handed over
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public void exportOrders(Consumer<Order> consumer) {
+        try (Stream<Order> orders = orderRepository.streamAll()) {
+            orders.forEach(order -> {
+                consumer.accept(order);
+                entityManager.detach(order);
+            });
+        }
     }
 
-    public List<Order> getMyOrders(String customerId) {
-        return orderRepository.findByCustomerId(customerId);
+    // Keyset page of the customer's order summaries, newest first: no item is loaded (see getOrderById)
+    public CursorPage<OrderSummary> getMyOrders(String customerId, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        Limit firstRows = Limit.of(pageSize + 1);
+        List<OrderSummary> summaries = cursor == null
+                ? orderSummaryRepository.findByCustomerIdOrderByOrderIdDesc(customerId, firstRows)
+                : orderSummaryRepository.findByCustomerIdAndOrderIdLessThanOrderByOrderIdDesc(customerId, cursor,
+                firstRows);
+
+        Long nextCursor = null;
+        if (summaries.size() > pageSize) {
+            summaries = summaries.subList(0, pageSize);
+            nextCursor = summaries.get(pageSize - 1).getOrderId();
+        }
+        return new CursorPage<>(summaries, nextCursor);
     }
 
     public Order getOrderById(Long id) {
@@ -63,6 +278,7 @@ public class OrderService {
     // --- UPDATE (Statut uniquement) ---
     public Order updateOrder(Long id, Order updatedOrder) {
         Order order = getOrderById(id);
+        String previousStatus = order.getStatut();
 
         // 1. Update simple fields
         order.setStatut(updatedOrder.getStatut());
@@ -86,17 +302,26 @@ public class OrderService {
             order.getOrderItemsList().addAll(newItems);
         }
 
+        if (!Objects.equals(previousStatus, order.getStatut())) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("orderId", id);
+            payload.put("customerId", order.getCustomerId());
+            payload.put("previousStatus", previousStatus);
+            payload.put("status", order.getStatut());
+            outboxWriter.record(OutboxWriter.ORDER_STATUS_CHANGED, id, payload);
+        }
+
+        Order saved = orderRepository.save(order);
+        orderSummaryWriter.updated(saved);
         log.info("Order ID: {} updated successfully", id);
-        return orderRepository.save(order);
+        return saved;
     }
 
     // --- DELETE ---
     public void deleteOrder(Long id) {
         orderRepository.deleteById(id);
+        orderSummaryWriter.deleted(id);
+        outboxWriter.record(OutboxWriter.ORDER_DELETED, id, Map.of("orderId", id));
         log.info("Order Deleted Successfully");
     }
-
-    public List<Order> getMyOrder(String customerId) {
-        return orderRepository.findByCustomerId(customerId);
-    }
 }
\ No newline at end of file
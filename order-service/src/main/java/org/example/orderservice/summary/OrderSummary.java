@@ -0,0 +1,39 @@
+package org.example.orderservice.summary;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.orderservice.entities.Order;
+
+import java.util.Date;
+
+// One row per order, without its items: what "my orders" lists. Same id as the order (not generated)
+@Entity
+@Table(name = "order_summary", indexes = @Index(name = "idx_order_summary_customer", columnList = "customerId, orderId"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class OrderSummary {
+    @Id
+    private Long orderId;
+    private String customerId;
+    private Date date_commande;
+    private String statut;
+    private double montant_total;
+    // Number of order lines, the lines themselves are only loaded with GET /api/orders/{id}
+    private int itemCount;
+
+    public OrderSummary(Order order) {
+        this.orderId = order.getOrderId();
+        apply(order);
+    }
+
+    void apply(Order order) {
+        this.customerId = order.getCustomerId();
+        this.date_commande = order.getDate_commande();
+        this.statut = order.getStatut();
+        this.montant_total = order.getMontant_total();
+        this.itemCount = order.getOrderItemsList() == null ? 0 : order.getOrderItemsList().size();
+    }
+}
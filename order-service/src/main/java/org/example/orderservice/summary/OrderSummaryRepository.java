@@ -0,0 +1,21 @@
+package org.example.orderservice.summary;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+// Keyset pages of one customer, newest first, served by the (customerId, orderId) index alone
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+
+    List<OrderSummary> findByCustomerIdOrderByOrderIdDesc(String customerId, Limit limit);
+
+    List<OrderSummary> findByCustomerIdAndOrderIdLessThanOrderByOrderIdDesc(String customerId, long cursor, Limit limit);
+
+    @Modifying
+    @Query("delete from OrderSummary s where s.orderId = :orderId")
+    int deleteSummary(@Param("orderId") long orderId);
+}
@@ -0,0 +1,42 @@
+package org.example.orderservice.summary;
+
+import jakarta.persistence.EntityManager;
+import org.example.orderservice.entities.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps the {@link OrderSummary} read model in step with the orders. Like the outbox, every change
+ * joins the transaction that changes the order, so a summary is never ahead of or behind its order.
+ * Orders without a summary (written before the read model existed) are filled in once, by the
+ * V5__backfill_order_summary migration.
+ */
+@Component
+public class OrderSummaryWriter {
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final EntityManager entityManager;
+
+    public OrderSummaryWriter(OrderSummaryRepository orderSummaryRepository, EntityManager entityManager) {
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.entityManager = entityManager;
+    }
+
+    // persist, not save: the id is assigned, save would first select it to decide between insert and update
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(Order order) {
+        entityManager.persist(new OrderSummary(order));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updated(Order order) {
+        orderSummaryRepository.findById(order.getOrderId()).ifPresentOrElse(
+                summary -> summary.apply(order),
+                () -> created(order));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(long orderId) {
+        orderSummaryRepository.deleteSummary(orderId);
+    }
+}
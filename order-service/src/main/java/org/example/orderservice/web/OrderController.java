@@ -1,23 +1,40 @@
 package org.example.orderservice.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.Model.BulkImportReport;
 import org.example.orderservice.entities.Order;
+import org.example.orderservice.service.CursorPage;
+import org.example.orderservice.service.OrderImportService;
 import org.example.orderservice.service.OrderService;
+import org.example.orderservice.summary.OrderSummary;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final OrderService orderService;
+    private final OrderImportService orderImportService;
+    private final ObjectMapper objectMapper;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderImportService orderImportService, ObjectMapper objectMapper) {
         this.orderService = orderService;
+        this.orderImportService = orderImportService;
+        this.objectMapper = objectMapper;
     }
 
     // 1. CREATE (CLIENT)
@@ -28,19 +45,55 @@ public class OrderController {
         return orderService.createOrder(order, customerId);
     }
 
-    // 2. READ ALL (ADMIN)
+    // 1b. BULK IMPORT of existing orders (ADMIN), committed in chunks, per-record errors in the report
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BulkImportReport importOrders(@RequestBody List<Order> orders) {
+        return orderImportService.importOrders(orders);
+    }
+
+    // 2. READ ALL (ADMIN), newest first
+    // Keyset pagination: pass the X-Next-Cursor header of a page as ?cursor= to get the next one
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'CLIENT')")
-    public List<Order> getAllOrders() {
-        return orderService.getAllOrders();
+    public ResponseEntity<List<Order>> getAllOrders(@RequestParam(required = false) Long cursor,
+                                                    @RequestParam(defaultValue = "100") int size) {
+        CursorPage<Order> page = orderService.getAllOrders(cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.items());
+    }
+
+    // 2b. EXPORT ALL as NDJSON, one order per line (ADMIN)
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        StreamingResponseBody body = out -> orderService.exportOrders(order -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(order));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
-    // 3. READ MINE (CLIENT)
+    // 3. READ MINE (CLIENT): summaries without items, newest first, keyset pages like READ ALL
     @GetMapping("/my-orders")
     @PreAuthorize("hasRole('CLIENT')")
-    public List<Order> getMyOrders(Authentication auth) {
+    public ResponseEntity<List<OrderSummary>> getMyOrders(Authentication auth,
+                                                          @RequestParam(required = false) Long cursor,
+                                                          @RequestParam(defaultValue = "100") int size) {
         String customerId = getTokenClaim(auth, "preferred_username");
-        return orderService.getMyOrder(customerId);
+        CursorPage<OrderSummary> page = orderService.getMyOrders(customerId, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.items());
     }
 
     // 4. READ ONE (ADMIN OR CLIENT)
@@ -0,0 +1,24 @@
+package org.example.orderservice.web;
+
+import org.example.orderservice.outbox.OutboxRelay;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/orders/outbox")
+public class OutboxController {
+    private final OutboxRelay outboxRelay;
+
+    public OutboxController(OutboxRelay outboxRelay) {
+        this.outboxRelay = outboxRelay;
+    }
+
+    // 1. RELAY STATISTICS (ADMIN): pending events, lag, published and failed batches
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> stats() {
+        return outboxRelay.stats();
+    }
+}
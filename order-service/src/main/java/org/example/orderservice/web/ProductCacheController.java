@@ -0,0 +1,39 @@
+package org.example.orderservice.web;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.Model.ProductChangeDTO;
+import org.example.orderservice.cache.ProductCache;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/orders/product-cache")
+public class ProductCacheController {
+    private final ProductCache productCache;
+
+    public ProductCacheController(ProductCache productCache) {
+        this.productCache = productCache;
+    }
+
+    // 1. CHANGE NOTIFICATION (sent by produit-service after an ADMIN write)
+    @PostMapping("/invalidations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void invalidate(@RequestBody ProductChangeDTO change) {
+        log.info("Product change {} received for {}", change.getType(), change.getProductIds());
+        if (change.getProductIds() == null) {
+            productCache.invalidateAll();
+        } else {
+            productCache.invalidate(change.getProductIds());
+        }
+    }
+
+    // 2. CACHE STATISTICS (ADMIN)
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> stats() {
+        return productCache.stats();
+    }
+}
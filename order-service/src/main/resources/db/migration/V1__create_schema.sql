@@ -0,0 +1,48 @@
+-- Tables and sequences of db_order, as the entities map them.
+-- "if not exists" everywhere: on a database created earlier by ddl-auto=update (baselined at version 0)
+-- only what is missing is created.
+
+create sequence if not exists orders_seq start with 1 increment by 50;
+create sequence if not exists order_items_seq start with 1 increment by 50;
+-- Not pooled: event ids follow the order in which events are written
+create sequence if not exists outbox_event_seq start with 1 increment by 1;
+
+create table if not exists orders (
+    order_id      bigint not null,
+    date_commande timestamp(6),
+    statut        varchar(255),
+    montant_total float(53) not null,
+    customer_id   varchar(255),
+    primary key (order_id)
+);
+
+create table if not exists order_items (
+    id             bigint not null,
+    product_id     bigint,
+    quantity       integer not null,
+    price          float(53) not null,
+    order_order_id bigint,
+    primary key (id),
+    constraint fk_order_items_order foreign key (order_order_id) references orders
+);
+
+create table if not exists outbox_event (
+    id           bigint not null,
+    type         varchar(255),
+    order_id     bigint,
+    payload      text,
+    created_at   timestamp(6) with time zone,
+    published_at timestamp(6) with time zone,
+    attempts     integer not null,
+    primary key (id)
+);
+
+create table if not exists order_summary (
+    order_id      bigint not null,
+    customer_id   varchar(255),
+    date_commande timestamp(6),
+    statut        varchar(255),
+    montant_total float(53) not null,
+    item_count    integer not null,
+    primary key (order_id)
+);
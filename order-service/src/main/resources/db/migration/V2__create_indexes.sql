@@ -0,0 +1,10 @@
+-- Indexes of the queries on the request path (checked with EXPLAIN in SchemaIndexTest)
+
+-- Items of a page of orders (fetch join on the order id) and of GET /api/orders/{id}
+create index if not exists idx_order_items_order on order_items (order_order_id);
+
+-- GET /api/orders/my-orders: one customer's summaries, keyset on the order id, newest first
+create index if not exists idx_order_summary_customer on order_summary (customer_id, order_id);
+
+-- Outbox relay: oldest pending events first, then cleanup of the published ones
+create index if not exists idx_outbox_event_pending on outbox_event (published_at, id);
@@ -0,0 +1,13 @@
+-- Stock reservations of committed orders not confirmed by produit-service yet (ReservationConfirmer).
+-- A row is written with the order and deleted once produit-service acknowledged the confirmation.
+create table if not exists reservation_confirmation (
+    reservation_id  varchar(255) not null,
+    order_id        bigint,
+    created_at      timestamp(6) with time zone,
+    next_attempt_at timestamp(6) with time zone,
+    attempts        integer not null,
+    primary key (reservation_id)
+);
+
+-- Retry job: rows whose next attempt is due
+create index if not exists idx_reservation_confirmation_next_attempt on reservation_confirmation (next_attempt_at);
@@ -0,0 +1,7 @@
+-- Summaries of the orders written before the read model existed (OrderSummaryWriter keeps the
+-- others in step). Once, in the migration: not on every startup, where instances would race on the key.
+insert into order_summary (order_id, customer_id, date_commande, statut, montant_total, item_count)
+select o.order_id, o.customer_id, o.date_commande, o.statut, o.montant_total,
+       (select count(*) from order_items i where i.order_order_id = o.order_id)
+from orders o
+where not exists (select 1 from order_summary s where s.order_id = o.order_id);
@@ -0,0 +1,83 @@
+package org.example.orderservice.cache;
+
+import feign.FeignException;
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.feign.StubProductRestClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelProductLoaderTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final StubProductRestClients client = new StubProductRestClients();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void largeCartCostsAboutOneLookupAndEveryWorkerCarriesTheCallerToken() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer caller");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        client.latency(Duration.ofMillis(200));
+        ParallelProductLoader loader = new ParallelProductLoader(client, 10, 8, Duration.ofSeconds(5), executor);
+
+        long start = System.nanoTime();
+        List<ProductDTO> products = loader.findProductsByIds(ids(80));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(products).extracting(ProductDTO::getId).containsExactlyInAnyOrderElementsOf(ids(80));
+        assertThat(client.lookups()).hasSize(8);
+        // 8 chunks of 200 ms: sequential would be 1600 ms
+        assertThat(elapsedMillis).isLessThan(800);
+        assertThat(client.authorizations()).containsExactly("Bearer caller");
+    }
+
+    @Test
+    void concurrencyIsLimitedPerCall() {
+        client.latency(Duration.ofMillis(100));
+        ParallelProductLoader loader = new ParallelProductLoader(client, 1, 3, Duration.ofSeconds(5), executor);
+
+        loader.findProductsByIds(ids(12));
+
+        assertThat(client.maxInFlight()).isEqualTo(3);
+    }
+
+    @Test
+    void slowLookupFailsAtTheDeadline() {
+        client.latency(Duration.ofMillis(2000));
+        ParallelProductLoader loader = new ParallelProductLoader(client, 1, 4, Duration.ofMillis(300), executor);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> loader.findProductsByIds(ids(4))).hasMessageContaining("deadline");
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis()).isLessThan(1500);
+    }
+
+    @Test
+    void failureOfOneChunkIsRethrown() {
+        client.status(503);
+        ParallelProductLoader loader = new ParallelProductLoader(client, 1, 4, Duration.ofSeconds(5), executor);
+
+        assertThatThrownBy(() -> loader.findProductsByIds(ids(4))).isInstanceOf(FeignException.ServiceUnavailable.class);
+    }
+
+    private static List<Long> ids(int count) {
+        return LongStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.orderservice.cache;
+
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.feign.StubProductRestClients;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final StubProductRestClients client = new StubProductRestClients();
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ParallelProductLoader loader = new ParallelProductLoader(client, 25, 8, Duration.ofSeconds(3), Runnable::run);
+        cache = new ProductCache(loader, true, Duration.ofSeconds(30), Duration.ofMinutes(5), 100,
+                now::get, Runnable::run);
+    }
+
+    @Test
+    void missesAreLoadedInOneBatchAndThenServedFromCache() {
+        client.price(10);
+        assertThat(cache.getProducts(List.of(1L, 2L, 3L))).hasSize(3);
+        assertThat(cache.getProducts(List.of(1L, 2L))).hasSize(2);
+
+        assertThat(client.lookups()).containsExactly(List.of(1L, 2L, 3L));
+        assertThat(cache.stats()).containsEntry("hits", 2L).containsEntry("misses", 3L);
+    }
+
+    @Test
+    void staleEntryIsServedWhileRevalidatedAndKeptWhenUpstreamFails() {
+        client.price(10);
+        cache.getProducts(List.of(1L));
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        client.status(503);
+
+        Map<Long, ProductDTO> products = cache.getProducts(List.of(1L));
+
+        assertThat(products.get(1L).getPrice()).isEqualTo(10);
+        assertThat(cache.stats()).containsEntry("staleHits", 1L).containsEntry("refreshFailures", 1L);
+
+        client.status(200);
+        client.price(12);
+        cache.getProducts(List.of(1L));
+        assertThat(cache.getProducts(List.of(1L)).get(1L).getPrice()).isEqualTo(12);
+    }
+
+    @Test
+    void invalidatedEntryIsReloaded() {
+        client.price(10);
+        cache.getProducts(List.of(1L));
+        client.price(15);
+        cache.invalidate(List.of(1L));
+
+        assertThat(cache.getProducts(List.of(1L)).get(1L).getPrice()).isEqualTo(15);
+        assertThat(client.lookups()).hasSize(2);
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotStored() {
+        client.price(10);
+        // produit-service answers with the old price, then the change notification arrives
+        client.duringLookup(() -> cache.invalidate(List.of(1L)));
+
+        assertThat(cache.getProducts(List.of(1L)).get(1L).getPrice()).isEqualTo(10);
+
+        client.duringLookup(null);
+        client.price(15);
+        assertThat(cache.getProducts(List.of(1L)).get(1L).getPrice()).isEqualTo(15);
+        assertThat(client.lookups()).hasSize(2);
+    }
+
+    @Test
+    void rejectedRevalidationIsRetriedByTheNextRead() {
+        ParallelProductLoader loader = new ParallelProductLoader(client, 25, 8, Duration.ofSeconds(3), Runnable::run);
+        List<Runnable> accepted = new ArrayList<>();
+        AtomicBoolean queueFull = new AtomicBoolean(true);
+        cache = new ProductCache(loader, true, Duration.ofSeconds(30), Duration.ofMinutes(5), 100, now::get, task -> {
+            if (queueFull.get()) {
+                throw new RejectedExecutionException("queue full");
+            }
+            accepted.add(task);
+        });
+        client.price(10);
+        cache.getProducts(List.of(1L));
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        cache.getProducts(List.of(1L));
+        queueFull.set(false);
+        cache.getProducts(List.of(1L));
+
+        assertThat(accepted).hasSize(1);
+        assertThat(cache.stats()).containsEntry("refreshFailures", 1L);
+    }
+
+    @Test
+    void entryExpiresAfterStaleWindow() {
+        client.price(10);
+        cache.getProducts(List.of(1L));
+        now.addAndGet(Duration.ofMinutes(6).toNanos());
+        client.price(20);
+
+        assertThat(cache.getProducts(List.of(1L)).get(1L).getPrice()).isEqualTo(20);
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.orderservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService pool = Executors.newFixedThreadPool(20);
+
+    @Test
+    void concurrentIdenticalLoadsMakeOneUpstreamCall() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+
+        Future<Map<Long, String>> leader = pool.submit(() -> singleFlight.loadAll(List.of(1L), ids -> {
+            upstreamCalls.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return Map.of(1L, "product-1");
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<Map<Long, String>>> waiters = new ArrayList<>();
+        for (int i = 0; i < 19; i++) {
+            waiters.add(pool.submit(() -> singleFlight.loadAll(List.of(1L), ids -> {
+                upstreamCalls.incrementAndGet();
+                return Map.of(1L, "duplicate");
+            })));
+        }
+        while (singleFlight.coalescedCount() < 19) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).containsEntry(1L, "product-1");
+        for (Future<Map<Long, String>> waiter : waiters) {
+            assertThat(waiter.get(5, TimeUnit.SECONDS)).containsEntry(1L, "product-1");
+        }
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void leaderFailureIsRethrownToEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("produit-service unavailable");
+
+        Future<Map<Long, String>> leader = pool.submit(() -> singleFlight.loadAll(List.of(1L), ids -> {
+            leaderStarted.countDown();
+            await(release);
+            throw failure;
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Map<Long, String>> waiter = pool.submit(() -> singleFlight.loadAll(List.of(1L), ids -> Map.of()));
+        while (singleFlight.coalescedCount() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCause(failure);
+
+        // Nothing stays in flight after a failure: the next call goes upstream again
+        assertThat(singleFlight.loadAll(List.of(1L), ids -> Map.of(1L, "product-1"))).containsEntry(1L, "product-1");
+    }
+
+    @Test
+    void onlyKeysNotAlreadyInFlightAreLoaded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        List<List<Long>> calls = new ArrayList<>();
+
+        Future<Map<Long, String>> first = pool.submit(() -> singleFlight.loadAll(List.of(1L, 2L), ids -> {
+            leaderStarted.countDown();
+            await(release);
+            return Map.of(1L, "product-1", 2L, "product-2");
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Map<Long, String>> second = pool.submit(() -> singleFlight.loadAll(List.of(2L, 3L), ids -> {
+            synchronized (calls) {
+                calls.add(List.copyOf(ids));
+            }
+            return Map.of(3L, "product-3");
+        }));
+        while (singleFlight.coalescedCount() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).hasSize(2);
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsEntry(2L, "product-2").containsEntry(3L, "product-3");
+        assertThat(calls).containsExactly(List.of(3L));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.orderservice.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadsGuardTest {
+
+    @Test
+    void versionsBeforeTheFirstOneThatDoesNotPinAreTold() {
+        // HikariCP of the Boot 3.2 BOM, and the first release without synchronized in the pool
+        assertThat(VirtualThreadsGuard.olderThan("5.0.1", 5, 1)).isTrue();
+        assertThat(VirtualThreadsGuard.olderThan("5.1.0", 5, 1)).isFalse();
+        assertThat(VirtualThreadsGuard.olderThan("6.0", 5, 1)).isFalse();
+        // pgjdbc, from the driver metadata
+        assertThat(VirtualThreadsGuard.olderThan(42, 5, 42, 6)).isTrue();
+        assertThat(VirtualThreadsGuard.olderThan(42, 6, 42, 6)).isFalse();
+        // Snapshot or vendor suffixes do not get in the way, garbage is not reported
+        assertThat(VirtualThreadsGuard.olderThan("5.0-SNAPSHOT", 5, 1)).isTrue();
+        assertThat(VirtualThreadsGuard.olderThan("unknown", 5, 1)).isFalse();
+    }
+}
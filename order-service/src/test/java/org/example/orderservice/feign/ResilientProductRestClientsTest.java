@@ -0,0 +1,111 @@
+package org.example.orderservice.feign;
+
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.Model.StockReservationDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientProductRestClientsTest {
+
+    private final StubProductRestClients client = new StubProductRestClients();
+
+    private static CircuitBreakerConfig breaker() {
+        return CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build();
+    }
+
+    private ResilientProductRestClients resilient(CircuitBreakerConfig breaker, boolean fallbackEnabled) {
+        return new ResilientProductRestClients(client, breaker, BulkheadConfig.ofDefaults(), BulkheadConfig.ofDefaults(),
+                RetryConfig.custom().maxAttempts(3).waitDuration(Duration.ofMillis(1)).build(), fallbackEnabled, 100);
+    }
+
+    @Test
+    void breakerOpensOnServerErrorsAndThenRejectsWithoutCalling() {
+        ResilientProductRestClients products = resilient(breaker(), false);
+        client.status(503);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> products.findProductsByIds(List.of(1L))).isInstanceOf(FeignException.class);
+        }
+
+        assertThat(products.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> products.findProductsByIds(List.of(1L))).isInstanceOf(CallNotPermittedException.class);
+        assertThat(client.lookups()).hasSize(4);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        products.bindTo(registry);
+        assertThat(registry.get("resilience4j.circuitbreaker.state").tag("state", "open").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("resilience4j.bulkhead.available.concurrent.calls").gauge().value()).isPositive();
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() {
+        ResilientProductRestClients products = resilient(breaker(), false);
+        client.status(409);
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> products.reserveStock(new StockReservationDTO()))
+                    .isInstanceOf(FeignException.Conflict.class);
+        }
+
+        assertThat(products.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reservationCompletionsSkipTheOpenBreakerAndAreRetried() {
+        ResilientProductRestClients products = resilient(breaker(), false);
+        client.status(503);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> products.findProductsByIds(List.of(1L))).isInstanceOf(FeignException.class);
+        }
+        assertThat(products.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> products.confirmReservation("r-1")).isInstanceOf(FeignException.ServiceUnavailable.class);
+        assertThat(client.completions()).isEqualTo(3);
+
+        // A stock conflict is an answer: not retried
+        client.status(409);
+        assertThatThrownBy(() -> products.releaseReservation("r-1")).isInstanceOf(FeignException.Conflict.class);
+        assertThat(client.completions()).isEqualTo(4);
+
+        client.status(200);
+        products.confirmReservation("r-2");
+        assertThat(client.completions()).isEqualTo(5);
+        assertThat(products.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void lookupsFallBackToLastKnownProductsOnlyWhenAllAreKnown() {
+        // Breaker kept closed here (100 calls window), so each call reaches the stub
+        ResilientProductRestClients products = resilient(CircuitBreakerConfig.ofDefaults(), true);
+        products.findProductsByIds(List.of(1L, 2L));
+        client.status(503);
+
+        assertThat(products.findProductsByIds(List.of(2L, 1L))).extracting(ProductDTO::getId).containsExactly(2L, 1L);
+        assertThat(products.findProductById(1L).getId()).isEqualTo(1L);
+        assertThatThrownBy(() -> products.findProductsByIds(List.of(1L, 3L)))
+                .isInstanceOf(FeignException.ServiceUnavailable.class);
+
+        // Unknown product: the 404 is the answer, not an outage
+        client.status(404);
+        assertThatThrownBy(() -> products.findProductById(1L)).isInstanceOf(FeignException.NotFound.class);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        products.bindTo(registry);
+        assertThat(registry.get("product.client.fallbacks").functionCounter().count()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.orderservice.feign;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.example.orderservice.Model.ProductDTO;
+import org.example.orderservice.Model.StockReservationDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * produit-service for the order-service tests: every product exists (name {@code product-<id>},
+ * the current price, 100 in stock), reservations are accepted as {@code r-1}, {@code r-2}... and
+ * every call is recorded. Calls may be slowed down, or answered with an HTTP error status as the
+ * Feign client would throw it. Thread safe: lookups run on the workers of ParallelProductLoader.
+ */
+public class StubProductRestClients implements ProductRestClients {
+    private final List<List<Long>> lookups = new CopyOnWriteArrayList<>();
+    private final Set<String> authorizations = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger reservations = new AtomicInteger();
+    private final AtomicInteger completions = new AtomicInteger();
+    private final List<String> confirmed = new CopyOnWriteArrayList<>();
+    private final List<String> released = new CopyOnWriteArrayList<>();
+    // Statuses of the next confirmations, status() once empty
+    private final Queue<Integer> confirmStatuses = new ConcurrentLinkedQueue<>();
+    private volatile int status = 200;
+    private volatile double price;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Runnable duringLookup;
+
+    // Status of every call from now on; 200 answers, anything else is thrown
+    public void status(int status) {
+        this.status = status;
+    }
+
+    public void price(double price) {
+        this.price = price;
+    }
+
+    public void latency(Duration latency) {
+        this.latency = latency;
+    }
+
+    // Run inside each lookup, before it answers (null for nothing)
+    public void duringLookup(Runnable duringLookup) {
+        this.duringLookup = duringLookup;
+    }
+
+    public void confirmStatuses(Integer... statuses) {
+        confirmStatuses.addAll(List.of(statuses));
+    }
+
+    public List<List<Long>> lookups() {
+        return lookups;
+    }
+
+    // Authorization header each lookup was sent with
+    public Set<String> authorizations() {
+        return authorizations;
+    }
+
+    public int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public int reservations() {
+        return reservations.get();
+    }
+
+    // Confirmation and release calls, failed ones included
+    public int completions() {
+        return completions.get();
+    }
+
+    public List<String> confirmed() {
+        return confirmed;
+    }
+
+    public List<String> released() {
+        return released;
+    }
+
+    @Override
+    public ProductDTO findProductById(Long id) {
+        return findProductsByIds(List.of(id)).get(0);
+    }
+
+    @Override
+    public List<ProductDTO> findProductsByIds(Collection<Long> ids) {
+        lookups.add(List.copyOf(ids));
+        authorizations.add(String.valueOf(AuthorizationContext.currentHeaders().get("Authorization")));
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Runnable during = duringLookup;
+            if (during != null) {
+                during.run();
+            }
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        answer(status, "/api/products/batch");
+        List<ProductDTO> products = new ArrayList<>();
+        for (Long id : ids) {
+            ProductDTO product = new ProductDTO();
+            product.setId(id);
+            product.setName("product-" + id);
+            product.setPrice(price);
+            product.setQuantity(100);
+            products.add(product);
+        }
+        return products;
+    }
+
+    @Override
+    public StockReservationDTO reserveStock(StockReservationDTO reservation) {
+        answer(status, "/api/products/reservations");
+        reservation.setId("r-" + reservations.incrementAndGet());
+        reservation.setStatus("PENDING");
+        return reservation;
+    }
+
+    @Override
+    public StockReservationDTO confirmReservation(String id) {
+        completions.incrementAndGet();
+        Integer next = confirmStatuses.poll();
+        answer(next != null ? next : status, "/api/products/reservations/" + id + "/confirm");
+        confirmed.add(id);
+        return null;
+    }
+
+    @Override
+    public StockReservationDTO releaseReservation(String id) {
+        completions.incrementAndGet();
+        answer(status, "/api/products/reservations/" + id + "/release");
+        released.add(id);
+        return null;
+    }
+
+    private static void answer(int status, String path) {
+        if (status != 200) {
+            Request request = Request.create(Request.HttpMethod.POST, path, Map.of(), null, StandardCharsets.UTF_8, null);
+            throw FeignException.errorStatus("ProductRestClients",
+                    Response.builder().status(status).reason("stub").request(request).headers(Map.of()).build());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.orderservice.outbox;
+
+import org.example.orderservice.entities.Order;
+import org.example.orderservice.repo.OrderRepository;
+import org.example.orderservice.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "outbox.relay.batch-size=2",
+        "outbox.relay.initial-backoff=0ms"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecordingPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        orderRepository.deleteAll();
+        publisher.batches.clear();
+        publisher.failuresLeft.set(0);
+    }
+
+    @Test
+    void statusChangesAreRelayedInOrderAndInBatches() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = orderRepository.save(order("CREATED"));
+            orderService.updateOrder(order.getOrderId(), order("SHIPPED"));
+            ids.add(order.getOrderId());
+        }
+        // Same status: nothing to publish
+        orderService.updateOrder(ids.get(0), order("SHIPPED"));
+
+        assertThat(outboxRelay.pending()).isEqualTo(3);
+        assertThat(outboxRelay.relayPending()).isEqualTo(3);
+
+        assertThat(publisher.batches).extracting(List::size).containsExactly(2, 1);
+        List<OrderEventMessage> messages = publisher.batches.stream().flatMap(List::stream).toList();
+        assertThat(messages).extracting(OrderEventMessage::orderId).containsExactlyElementsOf(ids);
+        assertThat(messages).extracting(OrderEventMessage::type).containsOnly(OutboxWriter.ORDER_STATUS_CHANGED);
+        assertThat(messages).extracting(OrderEventMessage::eventId).isSorted();
+        assertThat(messages.get(0).payload()).contains("\"previousStatus\":\"CREATED\"", "\"status\":\"SHIPPED\"");
+        assertThat(outboxRelay.pending()).isZero();
+        assertThat(outboxRelay.lag()).isZero();
+        assertThat(outboxRelay.relayPending()).isZero();
+    }
+
+    @Test
+    void refusedBatchStaysPendingAndIsSentAgain() {
+        Order order = orderRepository.save(order("CREATED"));
+        orderService.deleteOrder(order.getOrderId());
+        publisher.failuresLeft.set(1);
+        long failedBefore = (long) outboxRelay.stats().get("failedBatches");
+
+        assertThat(outboxRelay.relayPending()).isZero();
+        assertThat(outboxRelay.pending()).isEqualTo(1);
+        assertThat(outboxEventRepository.findAll()).singleElement()
+                .satisfies(event -> assertThat(event.getAttempts()).isEqualTo(1));
+        assertThat(outboxRelay.stats()).containsEntry("failedBatches", failedBefore + 1);
+
+        assertThat(outboxRelay.relayPending()).isEqualTo(1);
+        // The failed attempt and the retry carried the same event (consumers dedupe on eventId)
+        assertThat(publisher.batches).hasSize(2);
+        assertThat(publisher.batches.get(0)).isEqualTo(publisher.batches.get(1));
+        assertThat(publisher.batches.get(1).get(0).type()).isEqualTo(OutboxWriter.ORDER_DELETED);
+        assertThat(outboxRelay.pending()).isZero();
+        assertThat(outboxRelay.stats()).containsEntry("consecutiveFailures", 0);
+    }
+
+    @Test
+    void eventIsOnlyWrittenWithTheOrderTransaction() {
+        Order order = orderRepository.save(order("CREATED"));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            orderService.updateOrder(order.getOrderId(), order("CANCELLED"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxRelay.pending()).isZero();
+        assertThat(orderRepository.findById(order.getOrderId())).get()
+                .extracting(Order::getStatut).isEqualTo("CREATED");
+        assertThatThrownBy(() -> outboxWriter.record(OutboxWriter.ORDER_DELETED, 1L, Map.of()))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    private static Order order(String status) {
+        Order order = new Order();
+        order.setCustomerId("customer");
+        order.setStatut(status);
+        return order;
+    }
+
+    static class RecordingPublisher implements OrderEventPublisher {
+        final List<List<OrderEventMessage>> batches = new CopyOnWriteArrayList<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+
+        @Override
+        public void publish(List<OrderEventMessage> batch) {
+            batches.add(batch);
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("consumer unavailable");
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class PublisherConfig {
+        @Bean
+        @Primary
+        RecordingPublisher recordingPublisher() {
+            return new RecordingPublisher();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.orderservice.repo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The hot queries of db_order are served by the indexes of the migrations (H2 EXPLAIN names the index used)
+@SpringBootTest
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void myOrdersPageUsesTheCustomerIndex() {
+        assertThat(explain("select * from order_summary where customer_id = 'alice' and order_id < 1000 "
+                + "order by order_id desc limit 21")).contains("IDX_ORDER_SUMMARY_CUSTOMER");
+    }
+
+    // H2 indexes foreign keys by itself (PostgreSQL does not): any index on order_order_id will do
+    @Test
+    void itemsOfAPageUseTheOrderIndex() {
+        assertThat(explain("select * from order_items where order_order_id in (1, 2, 3)"))
+                .contains(": ORDER_ORDER_ID IN(1, 2, 3) */");
+    }
+
+    @Test
+    void pendingOutboxEventsUseThePendingIndex() {
+        assertThat(explain("select * from outbox_event where published_at is null order by id limit 100"))
+                .contains("IDX_OUTBOX_EVENT_PENDING");
+    }
+
+    private String explain(String sql) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertThat(plan).doesNotContain("tableScan");
+        return plan;
+    }
+}
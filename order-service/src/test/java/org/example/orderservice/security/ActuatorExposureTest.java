@@ -0,0 +1,69 @@
+package org.example.orderservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Metrics are scraped on the actuator port only; the service port serves the probes and nothing else of actuator
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.endpoints.web.exposure.include=health,prometheus",
+        "management.endpoint.health.probes.enabled=true",
+        "management.endpoint.health.probes.add-additional-paths=true"
+})
+@AutoConfigureObservability(tracing = false)
+class ActuatorExposureTest {
+
+    private static final int MANAGEMENT_PORT = freePort();
+
+    @DynamicPropertySource
+    static void managementPort(DynamicPropertyRegistry registry) {
+        registry.add("management.server.port", () -> MANAGEMENT_PORT);
+    }
+
+    @LocalServerPort
+    private int servicePort;
+
+    private final TestRestTemplate restTemplate = new TestRestTemplate();
+
+    @Test
+    void prometheusIsOnlyServedOnTheActuatorPort() {
+        assertThat(status(servicePort, "/actuator/prometheus")).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(status(MANAGEMENT_PORT, "/actuator/prometheus")).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void probesAreOpenOnBothPorts() {
+        assertThat(status(servicePort, "/readyz")).isEqualTo(HttpStatus.OK);
+        assertThat(status(servicePort, "/livez")).isEqualTo(HttpStatus.OK);
+        assertThat(status(MANAGEMENT_PORT, "/actuator/health/readiness")).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void theActuatorPortDoesNotOpenTheApi() {
+        assertThat(status(servicePort, "/api/orders")).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private HttpStatus status(int port, String path) {
+        return HttpStatus.valueOf(restTemplate.getForEntity("http://localhost:" + port + path, String.class)
+                .getStatusCode().value());
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.orderservice.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.orderservice.Model.BulkImportReport;
+import org.example.orderservice.entities.Order;
+import org.example.orderservice.entities.OrderItems;
+import org.example.orderservice.repo.OrderRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "orders.bulk.chunk-size=500"
+})
+class OrderImportServiceTest {
+
+    @Autowired
+    private OrderImportService orderImportService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void ordersAreInsertedInJdbcBatchesAndCommittedPerChunk() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            orders.add(order("customer-" + (i % 10), 2));
+        }
+
+        BulkImportReport report = orderImportService.importOrders(orders);
+
+        assertThat(report.getImported()).isEqualTo(1200);
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getChunks()).extracting(BulkImportReport.ChunkReport::getRecords).containsExactly(500, 500, 200);
+        assertThat(report.getChunks()).allSatisfy(chunk -> assertThat(chunk.getOrdersPerSecond()).isPositive());
+        assertThat(statistics.getTransactionCount()).isEqualTo(3);
+        // 3600 rows (orders + items): row-by-row would prepare 3600 inserts, plus one nextval each
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(300);
+        assertThat(orderRepository.count()).isEqualTo(1200);
+    }
+
+    @Test
+    void invalidRecordsAreReportedAndTheRestIsImported() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(order("customer", 1));
+        }
+        orders.get(2).setCustomerId(null);
+        orders.get(5).getOrderItemsList().get(0).setQuantity(0);
+        // Only the database notices this one (column too long): its chunk is replayed order by order
+        orders.get(7).setCustomerId("x".repeat(300));
+
+        BulkImportReport report = orderImportService.importOrders(orders);
+
+        assertThat(report.getImported()).isEqualTo(7);
+        assertThat(report.getFailed()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(BulkImportReport.RecordError::getIndex).containsExactlyInAnyOrder(2, 5, 7);
+        assertThat(orderRepository.count()).isEqualTo(7);
+    }
+
+    private static Order order(String customerId, int items) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        order.setStatut("DELIVERED");
+        List<OrderItems> orderItems = new ArrayList<>();
+        for (long productId = 1; productId <= items; productId++) {
+            orderItems.add(OrderItems.builder().productId(productId).quantity(2).price(5).build());
+        }
+        order.setOrderItemsList(orderItems);
+        return order;
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.orderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.orderservice.entities.Order;
+import org.example.orderservice.entities.OrderItems;
+import org.example.orderservice.repo.OrderRepository;
+import org.example.orderservice.summary.OrderSummary;
+import org.example.orderservice.summary.OrderSummaryRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Listing N orders must cost a constant number of statements, items included
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderServiceQueryCountTest {
+
+    private static final int ORDERS = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        orderSummaryRepository.deleteAll();
+        orderRepository.deleteAll();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setDate_commande(new Date());
+            order.setStatut("CREATED");
+            order.setCustomerId(i % 2 == 0 ? "alice" : "bob");
+            List<OrderItems> items = new ArrayList<>();
+            for (long productId = 1; productId <= 3; productId++) {
+                items.add(OrderItems.builder().productId(productId).quantity(1).price(10).order(order).build());
+            }
+            order.setOrderItemsList(items);
+            orderSummaryRepository.save(new OrderSummary(orderRepository.save(order)));
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listingAPageLoadsOrdersAndItemsInTwoStatements() throws Exception {
+        CursorPage<Order> page = orderService.getAllOrders(null, ORDERS);
+
+        // Serialized outside any transaction, like the controller response
+        objectMapper.writeValueAsString(page.items());
+
+        assertThat(page.items()).hasSize(ORDERS);
+        assertThat(page.items()).allSatisfy(order -> assertThat(order.getOrderItemsList()).hasSize(3));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void myOrdersAreSummariesLoadedInOneStatement() throws Exception {
+        CursorPage<OrderSummary> page = orderService.getMyOrders("alice", null, ORDERS);
+        objectMapper.writeValueAsString(page.items());
+
+        assertThat(page.items()).hasSize(ORDERS / 2);
+        assertThat(page.items()).allSatisfy(summary -> {
+            assertThat(summary.getCustomerId()).isEqualTo("alice");
+            assertThat(summary.getItemCount()).isEqualTo(3);
+        });
+        assertThat(page.nextCursor()).isNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void exportStreamsOrdersWithTheirItemsInOneStatement() {
+        List<Integer> itemCounts = new ArrayList<>();
+        orderService.exportOrders(order -> itemCounts.add(order.getOrderItemsList().size()));
+
+        assertThat(itemCounts).hasSize(ORDERS).containsOnly(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.orderservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.example.orderservice.cache.ParallelProductLoader;
+import org.example.orderservice.cache.ProductCache;
+import org.example.orderservice.entities.Order;
+import org.example.orderservice.entities.OrderItems;
+import org.example.orderservice.feign.StubProductRestClients;
+import org.example.orderservice.outbox.OutboxWriter;
+import org.example.orderservice.repo.OrderRepository;
+import org.example.orderservice.reservation.ReservationConfirmationRepository;
+import org.example.orderservice.reservation.ReservationConfirmer;
+import org.example.orderservice.summary.OrderSummaryRepository;
+import org.example.orderservice.summary.OrderSummaryWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Order creation against a stubbed produit-service: cart validation, and the stock reservation
+// following the outcome of the order's transaction, commit included
+@SpringBootTest
+class OrderServiceReservationTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private OrderSummaryWriter orderSummaryWriter;
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReservationConfirmationRepository confirmationRepository;
+
+    private StubProductRestClients client;
+    private ReservationConfirmer reservationConfirmer;
+    private OrderService orderService;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        orderSummaryRepository.deleteAll();
+        orderRepository.deleteAll();
+        confirmationRepository.deleteAll();
+        client = new StubProductRestClients();
+        client.price(10);
+        ProductCache productCache = new ProductCache(
+                new ParallelProductLoader(client, 25, 1, Duration.ofSeconds(3), new SyncTaskExecutor()),
+                false, Duration.ofSeconds(30), Duration.ZERO, 100);
+        // Failed confirmations are due again at once
+        reservationConfirmer = new ReservationConfirmer(confirmationRepository, client, transactionManager,
+                new SimpleMeterRegistry(), false, 50, Duration.ZERO, Duration.ZERO);
+        orderService = new OrderService(orderRepository, productCache, client, entityManager, outboxWriter,
+                orderSummaryWriter, orderSummaryRepository, reservationConfirmer, new SimpleMeterRegistry(), 500);
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void reservationIsConfirmedOnceTheOrderIsCommitted() {
+        transaction.executeWithoutResult(status -> {
+            orderService.createOrder(order(), "alice");
+            assertThat(client.confirmed()).isEmpty();
+        });
+
+        assertThat(client.confirmed()).containsExactly("r-1");
+        assertThat(client.released()).isEmpty();
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(confirmationRepository.count()).isZero();
+    }
+
+    @Test
+    void confirmationFailingAfterTheCommitIsRetriedUntilItGoesThrough() {
+        client.confirmStatuses(503, 503);
+        transaction.executeWithoutResult(status -> orderService.createOrder(order(), "alice"));
+
+        assertThat(client.confirmed()).isEmpty();
+        assertThat(confirmationRepository.count()).isEqualTo(1);
+
+        assertThat(reservationConfirmer.confirmPending()).isZero();
+        assertThat(confirmationRepository.findAll()).singleElement()
+                .satisfies(confirmation -> assertThat(confirmation.getAttempts()).isEqualTo(1));
+
+        assertThat(reservationConfirmer.confirmPending()).isEqualTo(1);
+        assertThat(client.confirmed()).containsExactly("r-1");
+        assertThat(confirmationRepository.count()).isZero();
+        assertThat(client.released()).isEmpty();
+    }
+
+    // Expired and released in produit-service meanwhile: nothing left to retry
+    @Test
+    void confirmationOfAReleasedReservationIsNotRetried() {
+        client.confirmStatuses(503, 409);
+        transaction.executeWithoutResult(status -> orderService.createOrder(order(), "alice"));
+
+        assertThat(reservationConfirmer.confirmPending()).isEqualTo(1);
+        assertThat(confirmationRepository.count()).isZero();
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    // Stands for a commit that fails after createOrder returned (deferred flush, lost connection...)
+    @Test
+    void reservationIsReleasedWhenTheTransactionRollsBack() {
+        transaction.executeWithoutResult(status -> {
+            orderService.createOrder(order(), "alice");
+            status.setRollbackOnly();
+        });
+
+        assertThat(client.confirmed()).isEmpty();
+        assertThat(client.released()).containsExactly("r-1");
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void invalidLinesAreRejectedBeforeAnyReservation() {
+        Order order = order();
+        order.getOrderItemsList().add(OrderItems.builder().productId(null).quantity(1).build());
+        order.getOrderItemsList().add(OrderItems.builder().productId(2L).quantity(0).build());
+
+        assertThatThrownBy(() -> orderService.createOrder(order, "alice"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .hasMessageContaining("Invalid order line 1");
+        assertThat(client.reservations()).isZero();
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        List<OrderItems> items = new ArrayList<>();
+        items.add(OrderItems.builder().productId(1L).quantity(2).build());
+        order.setOrderItemsList(items);
+        return order;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.orderservice.summary;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Upgrade of a database that has orders but no read model: Flyway baselines it at 0 and the V5
+// migration writes their summaries, once (baseline settings of src/main/resources/application.properties)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:baselinedb;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:db/baseline-schema.sql'",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=0"})
+class OrderSummaryBackfillMigrationTest {
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void existingOrdersGetTheirSummary() {
+        assertThat(orderSummaryRepository.findById(1L)).hasValueSatisfying(summary -> {
+            assertThat(summary.getCustomerId()).isEqualTo("legacy");
+            assertThat(summary.getStatut()).isEqualTo("CREATED");
+            assertThat(summary.getMontant_total()).isEqualTo(30);
+            assertThat(summary.getItemCount()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void backfillIsAMigrationRunOnce() {
+        assertThat(jdbcTemplate.queryForList("select \"version\" from \"flyway_schema_history\" "
+                + "where \"version\" is not null order by \"installed_rank\"", String.class))
+                .containsExactly("0", "1", "2", "3", "4", "5");
+    }
+}
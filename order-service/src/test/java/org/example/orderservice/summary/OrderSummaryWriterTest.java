@@ -0,0 +1,63 @@
+package org.example.orderservice.summary;
+
+import org.example.orderservice.entities.Order;
+import org.example.orderservice.service.CursorPage;
+import org.example.orderservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The read model follows every change made through OrderService, and is paged per customer
+@SpringBootTest
+class OrderSummaryWriterTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Test
+    void summaryFollowsCreateUpdateAndDelete() {
+        Order created = orderService.createOrder(new Order(), "carol");
+        assertThat(orderSummaryRepository.findById(created.getOrderId())).hasValueSatisfying(summary -> {
+            assertThat(summary.getCustomerId()).isEqualTo("carol");
+            assertThat(summary.getStatut()).isEqualTo("CREATED");
+            assertThat(summary.getItemCount()).isZero();
+        });
+
+        Order update = new Order();
+        update.setStatut("SHIPPED");
+        update.setMontant_total(42);
+        update.setCustomerId("carol");
+        orderService.updateOrder(created.getOrderId(), update);
+        assertThat(orderSummaryRepository.findById(created.getOrderId())).hasValueSatisfying(summary -> {
+            assertThat(summary.getStatut()).isEqualTo("SHIPPED");
+            assertThat(summary.getMontant_total()).isEqualTo(42);
+        });
+
+        orderService.deleteOrder(created.getOrderId());
+        assertThat(orderSummaryRepository.findById(created.getOrderId())).isEmpty();
+    }
+
+    @Test
+    void myOrdersArePagedNewestFirst() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(0, orderService.createOrder(new Order(), "dave").getOrderId());
+        }
+        orderService.createOrder(new Order(), "erin");
+
+        CursorPage<OrderSummary> first = orderService.getMyOrders("dave", null, 3);
+        CursorPage<OrderSummary> second = orderService.getMyOrders("dave", first.nextCursor(), 3);
+
+        assertThat(first.items()).extracting(OrderSummary::getOrderId).containsExactlyElementsOf(ids.subList(0, 3));
+        assertThat(second.items()).extracting(OrderSummary::getOrderId).containsExactlyElementsOf(ids.subList(3, 5));
+        assertThat(second.nextCursor()).isNull();
+    }
+}
@@ -0,0 +1,24 @@
+-- db_order as ddl-auto=update created it at baseline, before the migrations and the order_summary read model.
+-- Run on every connection to the test database (H2 INIT), hence "if not exists".
+create table if not exists orders (
+    order_id      bigint generated by default as identity,
+    date_commande timestamp(6),
+    statut        varchar(255),
+    montant_total float(53) not null,
+    customer_id   varchar(255),
+    primary key (order_id)
+);
+create table if not exists order_items (
+    id             bigint generated by default as identity,
+    product_id     bigint,
+    quantity       integer not null,
+    price          float(53) not null,
+    order_order_id bigint,
+    primary key (id)
+);
+insert into orders (order_id, statut, montant_total, customer_id)
+    select 1, 'CREATED', 30, 'legacy' where not exists (select 1 from orders where order_id = 1);
+insert into order_items (id, product_id, quantity, price, order_order_id)
+    select 1, 7, 1, 10, 1 where not exists (select 1 from order_items where id = 1);
+insert into order_items (id, product_id, quantity, price, order_order_id)
+    select 2, 8, 2, 10, 1 where not exists (select 1 from order_items where id = 2);
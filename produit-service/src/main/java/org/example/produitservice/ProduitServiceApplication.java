@@ -2,8 +2,10 @@ package org.example.produitservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ProduitServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,48 @@
+package org.example.produitservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// A product table created by ddl-auto=update at baseline is kept as is by V1 ("if not exists"):
+// it has neither the optimistic locking version nor the sku of the catalog sync, nor its unique index.
+// A Java migration because the unique index may already exist under another name (the one backing
+// uk_product_sku in H2), which "create index if not exists" cannot see.
+// A Spring bean, so Flyway picks it up from the context (the class name is its version).
+@Component
+@Slf4j
+public class V3__Add_missing_product_columns extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        jdbcTemplate.execute("alter table product add column if not exists version bigint default 0 not null");
+        jdbcTemplate.execute("alter table product add column if not exists sku varchar(255)");
+        if (!hasUniqueIndexOnSku(connection)) {
+            jdbcTemplate.execute("create unique index uk_product_sku on product (sku)");
+            log.info("Unique index uk_product_sku created");
+        }
+    }
+
+    private static boolean hasUniqueIndexOnSku(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesUpperCaseIdentifiers() ? "PRODUCT" : "product";
+        try (ResultSet indexes = metaData.getIndexInfo(null, connection.getSchema(), table, true, false)) {
+            while (indexes.next()) {
+                if ("sku".equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,10 +1,12 @@
 package org.example.produitservice.entitie;
 
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import lombok.*;
 
 @Entity
@@ -16,8 +18,15 @@ public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+    // Business key of the catalog sync (POST /api/products/bulk), optional for products created by hand
+    @Column(unique = true)
+    private String sku;
     private String name;
     private String description;
     private double price;
     private int quantity;
+    // Optimistic locking: concurrent admin edits and stock reservations cannot overwrite each other
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
 }
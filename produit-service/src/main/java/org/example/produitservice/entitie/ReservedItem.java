@@ -0,0 +1,14 @@
+package org.example.produitservice.entitie;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ReservedItem {
+    private Long productId;
+    private int quantity;
+}
@@ -0,0 +1,34 @@
+package org.example.produitservice.entitie;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+// Stock held for an order being created: PENDING until confirmed, released or expired
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class StockReservation {
+    public static final String PENDING = "PENDING";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASED = "RELEASED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    private String status;
+    // Service that reserved (subject of its identity), the only one allowed to confirm or release
+    @JsonIgnore
+    private String owner;
+    private Date createdAt;
+    private Date expiresAt;
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "stock_reservation_item", joinColumns = @JoinColumn(name = "reservation_id"))
+    private List<ReservedItem> items;
+}
@@ -0,0 +1,79 @@
+package org.example.produitservice.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.security.InternalIdentityFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pushes {@link ProductChangedEvent}s to the services caching products (order-service),
+ * once the transaction is committed. Delivery is best-effort and off the request thread:
+ * subscribers also expire their entries on their own TTL.
+ */
+@Component
+@Slf4j
+public class ProductChangeNotifier {
+    private final List<String> subscriberUrls;
+    private final TaskExecutor taskExecutor;
+    private final RestClient restClient;
+
+    public ProductChangeNotifier(@Value("${product.change-notification.urls:}") List<String> subscriberUrls,
+                                 TaskExecutor taskExecutor,
+                                 RestClient.Builder restClientBuilder) {
+        this.subscriberUrls = subscriberUrls;
+        this.taskExecutor = taskExecutor;
+        this.restClient = restClientBuilder.build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (subscriberUrls.isEmpty()) {
+            return;
+        }
+        // The ADMIN credentials of the write are relayed, the subscribers only accept ADMIN notifications
+        String authHeader = currentHeader("Authorization");
+        String identityHeader = currentHeader(InternalIdentityFilter.HEADER);
+        Map<String, Object> body = new HashMap<>();
+        body.put("productIds", event.productIds());
+        body.put("type", event.type());
+
+        taskExecutor.execute(() -> {
+            for (String url : subscriberUrls) {
+                try {
+                    restClient.post()
+                            .uri(url)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .headers(headers -> {
+                                if (authHeader != null) {
+                                    headers.set("Authorization", authHeader);
+                                }
+                                if (identityHeader != null) {
+                                    headers.set(InternalIdentityFilter.HEADER, identityHeader);
+                                }
+                            })
+                            .body(body)
+                            .retrieve()
+                            .toBodilessEntity();
+                } catch (RuntimeException e) {
+                    log.warn("Product change notification to {} failed: {}", url, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private String currentHeader(String name) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        return attributes != null ? attributes.getRequest().getHeader(name) : null;
+    }
+}
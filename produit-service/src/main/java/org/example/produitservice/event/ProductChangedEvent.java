@@ -0,0 +1,19 @@
+package org.example.produitservice.event;
+
+import java.util.List;
+
+// Published by ProductService after products were updated or deleted (null ids = whole catalog)
+public record ProductChangedEvent(List<Long> productIds, String type) {
+
+    public static ProductChangedEvent updated(Long id) {
+        return new ProductChangedEvent(List.of(id), "UPDATED");
+    }
+
+    public static ProductChangedEvent deleted(Long id) {
+        return new ProductChangedEvent(List.of(id), "DELETED");
+    }
+
+    public static ProductChangedEvent catalogChanged() {
+        return new ProductChangedEvent(null, "CATALOG_CHANGED");
+    }
+}
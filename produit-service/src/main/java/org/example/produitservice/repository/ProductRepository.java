@@ -1,6 +1,49 @@
 package org.example.produitservice.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.produitservice.entitie.Product;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product,Long> {}
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ProductRepository extends JpaRepository<Product,Long> {
+
+    // Keyset pagination: first page, then every product after the last id seen
+    List<Product> findAllByOrderByIdAsc(Limit limit);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Same pages, ids and versions only (ETags)
+    @Query("select p.id as id, p.version as version from Product p order by p.id")
+    List<ProductVersion> findPageVersions(Pageable pageable);
+
+    @Query("select p.id as id, p.version as version from Product p where p.id > :cursor order by p.id")
+    List<ProductVersion> findPageVersionsAfter(@Param("cursor") Long cursor, Pageable pageable);
+
+    // Export: rows are fetched from the cursor in chunks instead of being loaded all at once
+    @Query("select p from Product p order by p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamAll();
+
+    // Atomic stock moves: a single conditional UPDATE, no read-modify-write in the JVM.
+    // Returns 0 when the product is unknown or (decrement) has not enough stock left.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity - :quantity, p.version = p.version + 1 " +
+            "where p.id = :id and p.quantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.quantity = p.quantity + :quantity, p.version = p.version + 1 where p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+}
@@ -0,0 +1,8 @@
+package org.example.produitservice.repository;
+
+// Projection used to compute ETags without loading whole products
+public interface ProductVersion {
+    Long getId();
+
+    Long getVersion();
+}
@@ -0,0 +1,21 @@
+package org.example.produitservice.repository;
+
+import org.example.produitservice.entitie.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, UUID> {
+
+    // Compare-and-set on the status: only one caller wins a given transition
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockReservation r set r.status = :to where r.id = :id and r.status = :from")
+    int transition(@Param("id") UUID id, @Param("from") String from, @Param("to") String to);
+
+    List<StockReservation> findByStatusAndExpiresAtBefore(String status, Date date);
+}
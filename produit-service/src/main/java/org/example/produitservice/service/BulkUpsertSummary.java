@@ -0,0 +1,8 @@
+package org.example.produitservice.service;
+
+import java.util.List;
+
+// Outcome of a catalog sync (POST /api/products/bulk), errors = first rejected records as "index: reason"
+public record BulkUpsertSummary(int received, int inserted, int updated, int unchanged, int rejected,
+                                int chunks, long millis, List<String> errors) {
+}
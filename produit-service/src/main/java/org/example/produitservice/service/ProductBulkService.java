@@ -0,0 +1,226 @@
+package org.example.produitservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.produitservice.entitie.Product;
+import org.example.produitservice.event.ProductChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Catalog synchronisation: upserts a JSON array of products matched on their {@code sku}.
+ * <p>
+ * The array is parsed one product at a time and written in chunks of
+ * {@code product.bulk.chunk-size} rows, each chunk one transaction of batched MERGE statements,
+ * so memory stays flat whatever the catalog size. Unchanged products are left alone (their
+ * version, hence their ETag, does not move). The feed quantity is the stock on hand: what pending
+ * reservations hold is taken off it, so a sync does not hand reserved stock out a second time.
+ * A chunk that fails is reported in the summary and the sync goes on. Product caches are
+ * invalidated once, at the end, even when the sync stops half way: the chunks written before are
+ * committed.
+ */
+@Service
+@Slf4j
+public class ProductBulkService {
+    // Standard MERGE: PostgreSQL 15+ and H2. Casts because VALUES parameters are untyped in PostgreSQL.
+    static final String UPSERT_SQL = """
+            merge into product p
+            using (values (cast(? as varchar(255)), cast(? as varchar(255)), cast(? as varchar(255)),
+                           cast(? as double precision), cast(? as integer))) as s(sku, name, description, price, quantity)
+            on p.sku = s.sku
+            when matched and (p.name is distinct from s.name or p.description is distinct from s.description
+                              or p.price <> s.price or p.quantity <> s.quantity) then
+                update set name = s.name, description = s.description, price = s.price, quantity = s.quantity,
+                           version = p.version + 1
+            when not matched then
+                insert (sku, name, description, price, quantity, version)
+                values (s.sku, s.name, s.description, s.price, s.quantity, 0)
+            """;
+
+    // Stock held by pending reservations, per sku (reserve() already took it off product.quantity)
+    static final String PENDING_STOCK_SQL = """
+            select p.sku, sum(i.quantity)
+            from stock_reservation r
+            join stock_reservation_item i on i.reservation_id = r.id
+            join product p on p.id = i.product_id
+            where r.status = 'PENDING' and p.sku in (:skus)
+            group by p.sku
+            """;
+
+    // The summary lists the first rejections only, a broken feed must not fill the memory
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public ProductBulkService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                              @Value("${product.bulk.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public BulkUpsertSummary upsertProducts(InputStream json) throws IOException {
+        long start = System.nanoTime();
+        SyncProgress progress = new SyncProgress();
+        List<Product> chunk = new ArrayList<>(chunkSize);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A JSON array of products is expected");
+            }
+            JsonToken token;
+            // The parser itself fails on an array that is not closed
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                int index = progress.received++;
+                if (token != JsonToken.START_OBJECT) {
+                    // null, number, string or nested array: skipped whole, the next element is read after it
+                    parser.skipChildren();
+                    progress.reject(index, "a product object is expected, found " + token);
+                    continue;
+                }
+                Product product = parser.readValueAs(Product.class);
+                String error = validate(product);
+                if (error != null) {
+                    progress.reject(index, error);
+                    continue;
+                }
+                chunk.add(product);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, progress);
+            }
+        } catch (JsonProcessingException e) {
+            // Malformed JSON, unclosed array, or a product that does not map (e.g. a price that is not a number)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid product feed after "
+                    + progress.received + " products: " + e.getOriginalMessage(), e);
+        } finally {
+            // Chunks already committed stay committed when a later one fails or the feed is broken
+            if (progress.inserted + progress.updated > 0) {
+                eventPublisher.publishEvent(ProductChangedEvent.catalogChanged());
+            }
+        }
+
+        BulkUpsertSummary summary = new BulkUpsertSummary(progress.received, progress.inserted, progress.updated,
+                progress.received - progress.rejected - progress.inserted - progress.updated, progress.rejected,
+                progress.chunks, (System.nanoTime() - start) / 1_000_000, progress.errors);
+        log.info("Catalog sync: {}", summary);
+        return summary;
+    }
+
+    // A chunk that cannot be written (constraint, lock timeout, lost connection...) is rolled back and
+    // reported, the following chunks are still written
+    private void writeChunk(List<Product> products, SyncProgress progress) {
+        progress.chunks++;
+        try {
+            int[] written = transactionTemplate.execute(status -> upsertChunk(products));
+            progress.inserted += written[0];
+            progress.updated += written[1];
+        } catch (DataAccessException e) {
+            log.warn("Catalog sync: chunk {} not written", progress.chunks, e);
+            progress.rejected += products.size();
+            progress.error("chunk " + progress.chunks + " not written (" + products.size() + " products from sku "
+                    + products.get(0).getSku() + "): " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // {inserted, updated}
+    private int[] upsertChunk(List<Product> products) {
+        Map<String, Set<String>> skus = Map.of("skus", products.stream().map(Product::getSku).collect(Collectors.toSet()));
+        // Inserted or updated is decided by whether the sku existed in this transaction, before the MERGE.
+        // Rows locked in id order, as reservations do: a reservation in flight commits before the
+        // pending stock is read, a new one waits for this chunk
+        Set<String> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                "select sku from product where sku in (:skus) order by id for update", skus, String.class));
+        Map<String, Integer> pending = new HashMap<>();
+        namedJdbcTemplate.query(PENDING_STOCK_SQL, skus, row -> {
+            pending.put(row.getString(1), row.getInt(2));
+        });
+        int[] counts = jdbcTemplate.batchUpdate(UPSERT_SQL, products.stream()
+                .map(product -> new Object[]{product.getSku(), product.getName(), product.getDescription(),
+                        product.getPrice(), Math.max(0, product.getQuantity() - pending.getOrDefault(product.getSku(), 0))})
+                .toList(), new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.INTEGER});
+        int inserted = 0;
+        int updated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            // 0 = unchanged. Some drivers only report "success, unknown count" (-2), taken as a change
+            if (counts[i] == 0) {
+                continue;
+            }
+            // add(): a sku repeated in the chunk is an insert the first time, an update after
+            if (existing.add(products.get(i).getSku())) {
+                inserted++;
+            } else {
+                updated++;
+            }
+        }
+        return new int[]{inserted, updated};
+    }
+
+    private static String validate(Product product) {
+        if (product.getSku() == null || product.getSku().isBlank()) {
+            return "sku is required";
+        }
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "name is required for sku " + product.getSku();
+        }
+        if (product.getPrice() < 0 || product.getQuantity() < 0) {
+            return "price and quantity must not be negative for sku " + product.getSku();
+        }
+        return null;
+    }
+
+    private static final class SyncProgress {
+        private final List<String> errors = new ArrayList<>();
+        private int received;
+        private int inserted;
+        private int updated;
+        private int rejected;
+        private int chunks;
+
+        private void reject(int index, String error) {
+            rejected++;
+            error(index + ": " + error);
+        }
+
+        private void error(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+}
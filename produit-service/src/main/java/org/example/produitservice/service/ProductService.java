@@ -1,22 +1,44 @@
 package org.example.produitservice.service;
 
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import jakarta.websocket.server.ServerEndpoint;
 import lombok.Setter;
 import org.example.produitservice.entitie.Product;
+import org.example.produitservice.event.ProductChangedEvent;
 import org.example.produitservice.repository.ProductRepository;
+import org.example.produitservice.repository.ProductVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ProductService {
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final int maxPageSize;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                          EntityManager entityManager, @Value("${pagination.max-page-size:500}") int maxPageSize) {
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.maxPageSize = maxPageSize;
     }
 
     // Req: Add a product [cite: 27]
@@ -29,22 +51,76 @@ public class ProductService {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
+        // The admin edited a product version that is not the current one anymore
+        if (updatedProduct.getVersion() != null && !updatedProduct.getVersion().equals(existingProduct.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, id);
+        }
+
         existingProduct.setName(updatedProduct.getName());
         existingProduct.setDescription(updatedProduct.getDescription());
         existingProduct.setPrice(updatedProduct.getPrice());
         existingProduct.setQuantity(updatedProduct.getQuantity());
 
-        return productRepository.save(existingProduct);
+        Product saved = productRepository.save(existingProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(id));
+        return saved;
     }
 
     // Req: Delete a product [cite: 29]
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+    }
+
+    // Req: List products [cite: 30] (keyset page of at most maxPageSize products)
+    public CursorPage<Product> getAllProducts(Long cursor, int size) {
+        int pageSize = pageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Product> products = cursor == null
+                ? productRepository.findAllByOrderByIdAsc(limit)
+                : productRepository.findByIdGreaterThanOrderByIdAsc(cursor, limit);
+
+        if (products.size() <= pageSize) {
+            return new CursorPage<>(products, null);
+        }
+        List<Product> page = products.subList(0, pageSize);
+        return new CursorPage<>(page, page.get(pageSize - 1).getId());
+    }
+
+    // Strong ETag of a listing page: changes whenever a product of the page (or the next one) changes.
+    // Computed from ids and versions only, so a 304 costs neither loading nor serializing the page.
+    public String getPageEtag(Long cursor, int size) {
+        int pageSize = pageSize(size);
+        Pageable rows = PageRequest.ofSize(pageSize + 1);
+        List<ProductVersion> versions = cursor == null
+                ? productRepository.findPageVersions(rows)
+                : productRepository.findPageVersionsAfter(cursor, rows);
+
+        StringBuilder page = new StringBuilder();
+        for (ProductVersion version : versions) {
+            page.append(version.getId()).append(':').append(version.getVersion()).append(',');
+        }
+        return "\"p-" + DigestUtils.md5DigestAsHex(page.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
     }
 
-    // Req: List products [cite: 30]
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    // Strong ETag of one product, from its @Version
+    public static String etagOf(Product product) {
+        return "\"" + product.getId() + "-" + product.getVersion() + "\"";
+    }
+
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    // Export the whole catalog with flat memory: each product is detached once handed over
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public void exportProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAll()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
     }
 
     // Req: Consult a product by ID [cite: 31]
@@ -52,4 +128,12 @@ public class ProductService {
         return productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
     }
+
+    // Consult several products in one query (used by order-service)
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return productRepository.findAllById(new LinkedHashSet<>(ids));
+    }
 }
@@ -0,0 +1,164 @@
+package org.example.produitservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.example.produitservice.entitie.ReservedItem;
+import org.example.produitservice.entitie.StockReservation;
+import org.example.produitservice.repository.ProductRepository;
+import org.example.produitservice.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Reserves stock for several products at once. Each product is decremented with a conditional
+ * UPDATE (quantity >= requested), so concurrent buyers of the same product can never oversell:
+ * the database serializes them on the row and the losers see 0 updated rows.
+ */
+@Service
+@Transactional
+@Slf4j
+public class StockReservationService {
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration reservationTtl;
+    private final Counter reservedCount;
+    private final Counter outOfStockCount;
+    private final Counter expiredCount;
+
+    public StockReservationService(ProductRepository productRepository,
+                                   StockReservationRepository reservationRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${stock.reservation.ttl:15m}") Duration reservationTtl) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservationTtl = reservationTtl;
+        this.reservedCount = reservationCounter(meterRegistry, "reserved");
+        this.outOfStockCount = reservationCounter(meterRegistry, "out_of_stock");
+        this.expiredCount = reservationCounter(meterRegistry, "expired");
+    }
+
+    private static Counter reservationCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("stock.reservations")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // All or nothing: any product short of stock rolls back the decrements already done.
+    // The owner (calling service) is the only one that may confirm or release it afterwards.
+    public StockReservation reserve(List<ReservedItem> items, String owner) {
+        if (items == null || items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Reservation without items");
+        }
+
+        // Same product merged, and rows always locked in id order so two carts cannot deadlock
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (ReservedItem item : items) {
+            if (item.getProductId() == null || item.getQuantity() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid reservation item");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        List<ReservedItem> reserved = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            if (productRepository.decrementStock(productId, quantity) == 0) {
+                outOfStockCount.increment();
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuffisant: produit " + productId);
+            }
+            reserved.add(new ReservedItem(productId, quantity));
+        });
+
+        Date now = new Date();
+        Date expiresAt = new Date(now.getTime() + reservationTtl.toMillis());
+        StockReservation reservation = reservationRepository.save(
+                new StockReservation(null, StockReservation.PENDING, owner, now, expiresAt, reserved));
+        reservedCount.increment();
+        return reservation;
+    }
+
+    // The order was saved: the stock stays taken for good
+    public StockReservation confirm(UUID id, String owner) {
+        checkOwner(id, owner);
+        if (reservationRepository.transition(id, StockReservation.PENDING, StockReservation.CONFIRMED) == 0) {
+            return expectStatus(id, StockReservation.CONFIRMED);
+        }
+        return getReservation(id);
+    }
+
+    // The order failed or was abandoned: the stock goes back to the products
+    public StockReservation release(UUID id, String owner) {
+        checkOwner(id, owner);
+        return releaseStock(id);
+    }
+
+    private StockReservation releaseStock(UUID id) {
+        if (reservationRepository.transition(id, StockReservation.PENDING, StockReservation.RELEASED) == 0) {
+            return expectStatus(id, StockReservation.RELEASED);
+        }
+        StockReservation reservation = getReservation(id);
+        for (ReservedItem item : reservation.getItems()) {
+            productRepository.incrementStock(item.getProductId(), item.getQuantity());
+        }
+        return reservation;
+    }
+
+    public StockReservation getReservation(UUID id) {
+        return reservationRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found"));
+    }
+
+    // Gives back the stock of reservations nobody confirmed or released in time. One transaction per
+    // reservation: one that fails (lock timeout, confirmed meanwhile...) does not hold the others back
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval:60000}")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void releaseExpired() {
+        List<StockReservation> expired = reservationRepository.findByStatusAndExpiresAtBefore(StockReservation.PENDING, new Date());
+        int released = 0;
+        for (StockReservation reservation : expired) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> releaseStock(reservation.getId()));
+                released++;
+            } catch (RuntimeException e) {
+                log.warn("Expired stock reservation {} not released: {}", reservation.getId(), e.getMessage());
+            }
+        }
+        if (released > 0) {
+            expiredCount.increment(released);
+            log.info("{} expired stock reservations released", released);
+        }
+    }
+
+    // Someone else's reservation is reported as unknown
+    private void checkOwner(UUID id, String owner) {
+        if (!owner.equals(getReservation(id).getOwner())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found");
+        }
+    }
+
+    // Replaying a confirm/release is fine, crossing them is not
+    private StockReservation expectStatus(UUID id, String status) {
+        StockReservation reservation = getReservation(id);
+        if (!status.equals(reservation.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Reservation already " + reservation.getStatus());
+        }
+        return reservation;
+    }
+}
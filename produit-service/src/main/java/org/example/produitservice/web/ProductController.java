@@ -1,20 +1,39 @@
 package org.example.produitservice.web;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.produitservice.entitie.Product;
+import org.example.produitservice.service.BulkUpsertSummary;
+import org.example.produitservice.service.CursorPage;
+import org.example.produitservice.service.ProductBulkService;
 import org.example.produitservice.service.ProductService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductBulkService productBulkService,
+                             ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productBulkService = productBulkService;
+        this.objectMapper = objectMapper;
     }
 
     // 1. Add Product -> ADMIN Only [cite: 27]
@@ -24,6 +43,13 @@ public class ProductController {
         return productService.createProduct(product);
     }
 
+    // 1b. Catalog sync: upsert a (streamed) JSON array of products matched on sku -> ADMIN Only
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public BulkUpsertSummary upsertProducts(InputStream body) throws IOException {
+        return productBulkService.upsertProducts(body);
+    }
+
     // 2. Modify Product -> ADMIN Only [cite: 28]
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -39,16 +65,63 @@ public class ProductController {
     }
 
     // 4. List Products -> ADMIN and CLIENT [cite: 30]
+    // Keyset pagination: pass the X-Next-Cursor header of a page as ?cursor= to get the next one
+    // ETag / If-None-Match: an unchanged page is answered 304 without being loaded
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'CLIENT')")
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<List<Product>> getAllProducts(@RequestParam(required = false) Long cursor,
+                                                        @RequestParam(defaultValue = "100") int size,
+                                                        WebRequest webRequest) {
+        String etag = productService.getPageEtag(cursor, size);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        CursorPage<Product> page = productService.getAllProducts(cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.items());
+    }
+
+    // 4b. Export the whole catalog as NDJSON (one product per line) -> ADMIN Only
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = out -> productService.exportProducts(product -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(product));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
-    // 5. Get One Product -> ADMIN and CLIENT [cite: 31]
+    // 5. Get One Product -> ADMIN and CLIENT [cite: 31] (ETag from the product version)
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'CLIENT')")
-    public Product getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+    public ResponseEntity<Product> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        Product product = productService.getProductById(id);
+        String etag = ProductService.etagOf(product);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(product);
+    }
+
+    // 6. Get Several Products (?ids=1,2,3) -> ADMIN and CLIENT
+    @GetMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CLIENT')")
+    public List<Product> getProductsByIds(@RequestParam List<Long> ids) {
+        return productService.getProductsByIds(ids);
+    }
+
+    // 7. Same lookup with the ids in the body (large carts, no URL length limit)
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CLIENT')")
+    public List<Product> findProductsByIds(@RequestBody List<Long> ids) {
+        return productService.getProductsByIds(ids);
     }
 }
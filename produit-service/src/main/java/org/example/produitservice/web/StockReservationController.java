@@ -0,0 +1,51 @@
+package org.example.produitservice.web;
+
+
+import org.example.produitservice.entitie.StockReservation;
+import org.example.produitservice.service.StockReservationService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+// Called by order-service only, with its service identity (X-Service-Identity), while an order is
+// created: buyers never reach these endpoints, and a reservation is confirmed or released by the
+// service that made it
+@RestController
+@RequestMapping("/api/products/reservations")
+public class StockReservationController {
+    private final StockReservationService reservationService;
+
+    public StockReservationController(StockReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    // 1. Reserve stock for several products at once (409 if one is short)
+    @PostMapping
+    @PreAuthorize("hasRole('SERVICE')")
+    public StockReservation reserve(@RequestBody StockReservation reservation, Authentication caller) {
+        return reservationService.reserve(reservation.getItems(), caller.getName());
+    }
+
+    // 2. Keep the stock (order saved)
+    @PostMapping("/{id}/confirm")
+    @PreAuthorize("hasRole('SERVICE')")
+    public StockReservation confirm(@PathVariable UUID id, Authentication caller) {
+        return reservationService.confirm(id, caller.getName());
+    }
+
+    // 3. Give the stock back (order failed)
+    @PostMapping("/{id}/release")
+    @PreAuthorize("hasRole('SERVICE')")
+    public StockReservation release(@PathVariable UUID id, Authentication caller) {
+        return reservationService.release(id, caller.getName());
+    }
+
+    // 4. Consult a reservation
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('SERVICE', 'ADMIN')")
+    public StockReservation getReservation(@PathVariable UUID id) {
+        return reservationService.getReservation(id);
+    }
+}
@@ -0,0 +1,31 @@
+-- Tables of db_product, as the entities map them.
+-- "if not exists" everywhere: on a database created earlier by ddl-auto=update (baselined at version 0)
+-- only what is missing is created.
+
+create table if not exists product (
+    id          bigint generated by default as identity,
+    sku         varchar(255),
+    name        varchar(255),
+    description varchar(255),
+    price       float(53) not null,
+    quantity    integer not null,
+    version     bigint default 0 not null,
+    primary key (id),
+    -- Business key of the catalog sync, also the index of its MERGE
+    constraint uk_product_sku unique (sku)
+);
+
+create table if not exists stock_reservation (
+    id         uuid not null,
+    status     varchar(255),
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    primary key (id)
+);
+
+create table if not exists stock_reservation_item (
+    reservation_id uuid not null,
+    product_id     bigint,
+    quantity       integer not null,
+    constraint fk_stock_reservation_item_reservation foreign key (reservation_id) references stock_reservation
+);
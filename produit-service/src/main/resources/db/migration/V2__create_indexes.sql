@@ -0,0 +1,7 @@
+-- Indexes of the queries on the request path (checked with EXPLAIN in SchemaIndexTest)
+
+-- Items of a reservation, loaded with it (element collection)
+create index if not exists idx_stock_reservation_item_reservation on stock_reservation_item (reservation_id);
+
+-- Expiry sweep: pending reservations past their deadline
+create index if not exists idx_stock_reservation_status_expires on stock_reservation (status, expires_at);
@@ -0,0 +1,3 @@
+-- Service that made the reservation: only it may confirm or release it.
+-- Reservations made before this column existed have no owner and are left to the expiry sweep.
+alter table stock_reservation add column if not exists owner varchar(255);
@@ -0,0 +1,53 @@
+package org.example.produitservice.repository;
+
+import org.example.produitservice.entitie.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Upgrade of a database created by ddl-auto=update at baseline: Flyway baselines it at 0, the migrations
+// add what the entities need and the context starts with ddl-auto=validate
+// (baseline settings of src/main/resources/application.properties, not in the test properties)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:baselinedb;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:db/baseline-schema.sql'",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=0"})
+class BaselineSchemaMigrationTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void existingProductsGetAVersionAndNoSku() {
+        Product legacy = productRepository.findAll().stream()
+                .filter(product -> "Legacy".equals(product.getName())).findFirst().orElseThrow();
+
+        assertThat(legacy.getVersion()).isZero();
+        assertThat(legacy.getSku()).isNull();
+    }
+
+    @Test
+    void skuIsUnique() {
+        jdbcTemplate.update("insert into product (sku, name, price, quantity) values ('DUP', 'a', 1, 1)");
+
+        assertThatThrownBy(() -> jdbcTemplate.update(
+                "insert into product (sku, name, price, quantity) values ('DUP', 'b', 1, 1)"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void baselineWasRecorded() {
+        assertThat(jdbcTemplate.queryForList("select \"version\" from \"flyway_schema_history\" "
+                + "where \"version\" is not null order by \"installed_rank\"", String.class))
+                .containsExactly("0", "1", "2", "3", "4");
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.produitservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The hot queries of db_product are served by the indexes of the migrations (H2 EXPLAIN names the index used)
+@SpringBootTest
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void catalogSyncFindsProductsBySku() {
+        assertThat(explain("select * from product where sku = 'LT-1'")).contains("UK_PRODUCT_SKU");
+    }
+
+    @Test
+    void expirySweepUsesTheStatusIndex() {
+        assertThat(explain("select * from stock_reservation where status = 'PENDING' "
+                + "and expires_at < current_timestamp")).contains("IDX_STOCK_RESERVATION_STATUS_EXPIRES");
+    }
+
+    // H2 indexes foreign keys by itself (PostgreSQL does not): any index on reservation_id will do
+    @Test
+    void reservationItemsUseTheReservationIndex() {
+        assertThat(explain("select * from stock_reservation_item "
+                + "where reservation_id = '00000000-0000-0000-0000-000000000000'"))
+                .contains(": RESERVATION_ID = UUID '00000000-0000-0000-0000-000000000000' */");
+    }
+
+    private String explain(String sql) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertThat(plan).doesNotContain("tableScan");
+        return plan;
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.produitservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.produitservice.entitie.Product;
+import org.example.produitservice.entitie.ReservedItem;
+import org.example.produitservice.entitie.StockReservation;
+import org.example.produitservice.event.ProductChangedEvent;
+import org.example.produitservice.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "product.bulk.chunk-size=1000")
+@RecordApplicationEvents
+class ProductBulkServiceTest {
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void catalogIsInsertedThenOnlyChangedProductsAreUpdated() throws Exception {
+        BulkUpsertSummary first = productBulkService.upsertProducts(catalog(2500, 0));
+
+        assertThat(first.inserted()).isEqualTo(2500);
+        assertThat(first.chunks()).isEqualTo(3);
+        assertThat(productRepository.count()).isEqualTo(2500);
+
+        // Nightly run: 10 prices moved, 5 new products
+        BulkUpsertSummary second = productBulkService.upsertProducts(catalog(2505, 10));
+
+        assertThat(second.received()).isEqualTo(2505);
+        assertThat(second.inserted()).isEqualTo(5);
+        assertThat(second.updated()).isEqualTo(10);
+        assertThat(second.unchanged()).isEqualTo(2490);
+        Map<String, Product> bySku = productRepository.findAll().stream()
+                .collect(Collectors.toMap(Product::getSku, Function.identity()));
+        assertThat(bySku.get("SKU-0").getPrice()).isEqualTo(11);
+        assertThat(bySku.get("SKU-0").getVersion()).isEqualTo(1);
+        assertThat(bySku.get("SKU-10").getVersion()).isZero();
+
+        // One cache invalidation per sync, for the whole catalog
+        assertThat(events.stream(ProductChangedEvent.class))
+                .hasSize(2)
+                .allSatisfy(event -> assertThat(event.productIds()).isNull());
+    }
+
+    @Test
+    void invalidRecordsAreCountedAndSkipped() throws Exception {
+        String json = """
+                [{"sku": "A", "name": "a", "price": 1, "quantity": 1},
+                 {"name": "no sku", "price": 1, "quantity": 1},
+                 {"sku": "B", "name": "b", "price": -1, "quantity": 1}]
+                """;
+
+        BulkUpsertSummary summary = productBulkService.upsertProducts(stream(json));
+
+        assertThat(summary.inserted()).isEqualTo(1);
+        assertThat(summary.rejected()).isEqualTo(2);
+        assertThat(summary.errors()).hasSize(2).first().asString().startsWith("1: ");
+    }
+
+    @Test
+    void elementsThatAreNotObjectsAreRejectedAndTheRestIsRead() throws Exception {
+        String json = """
+                [{"sku": "A", "name": "a", "price": 1, "quantity": 1}, null, 5, [{"sku": "X"}],
+                 {"sku": "B", "name": "b", "price": 1, "quantity": 1}]
+                """;
+
+        BulkUpsertSummary summary = productBulkService.upsertProducts(stream(json));
+
+        assertThat(summary.received()).isEqualTo(5);
+        assertThat(summary.inserted()).isEqualTo(2);
+        assertThat(summary.rejected()).isEqualTo(3);
+        assertThat(summary.errors()).containsExactly("1: a product object is expected, found VALUE_NULL",
+                "2: a product object is expected, found VALUE_NUMBER_INT",
+                "3: a product object is expected, found START_ARRAY");
+    }
+
+    @Test
+    void committedChunksAreInvalidatedWhenTheFeedBreaks() {
+        String json = """
+                [{"sku": "A", "name": "a", "price": 1, "quantity": 1},
+                 {"sku": "B", "name": "b", "price": 1, "quantity": 1},
+                 {"sku": "C", "name": "c", "price": 1, "quantity": 1}
+                """;
+
+        assertThatThrownBy(() -> singleRowChunks().upsertProducts(stream(json)))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("expected close marker for Array");
+        // One product per chunk: all three were committed before the end of the feed was reached
+        assertThat(productRepository.count()).isEqualTo(3);
+        assertThat(events.stream(ProductChangedEvent.class)).hasSize(1);
+    }
+
+    @Test
+    void aChunkThatFailsIsReportedAndTheNextOnesAreWritten() throws Exception {
+        String json = """
+                [{"sku": "A", "name": "a", "price": 1, "quantity": 1},
+                 {"sku": "B", "name": "refused", "price": 1, "quantity": 1},
+                 {"sku": "C", "name": "c", "price": 1, "quantity": 1}]
+                """;
+
+        BulkUpsertSummary summary;
+        jdbcTemplate.execute("alter table product add constraint ck_product_test check (name <> 'refused')");
+        try {
+            summary = singleRowChunks().upsertProducts(stream(json));
+        } finally {
+            jdbcTemplate.execute("alter table product drop constraint ck_product_test");
+        }
+
+        assertThat(summary.inserted()).isEqualTo(2);
+        assertThat(summary.rejected()).isEqualTo(1);
+        assertThat(summary.chunks()).isEqualTo(3);
+        assertThat(summary.errors()).singleElement().asString().startsWith("chunk 2 not written (1 products from sku B)");
+        assertThat(events.stream(ProductChangedEvent.class)).hasSize(1);
+    }
+
+    @Test
+    void updatesAreToldApartFromInsertsWithinAChunk() throws Exception {
+        productBulkService.upsertProducts(stream("[{\"sku\": \"A\", \"name\": \"a\", \"price\": 1, \"quantity\": 1}]"));
+        String json = """
+                [{"sku": "A", "name": "a", "price": 2, "quantity": 1},
+                 {"sku": "B", "name": "b", "price": 1, "quantity": 1},
+                 {"sku": "B", "name": "b", "price": 3, "quantity": 1}]
+                """;
+
+        BulkUpsertSummary summary = productBulkService.upsertProducts(stream(json));
+
+        assertThat(summary.inserted()).isEqualTo(1);
+        assertThat(summary.updated()).isEqualTo(2);
+        assertThat(summary.unchanged()).isZero();
+    }
+
+    @Test
+    void stockHeldByPendingReservationsIsTakenOffTheFeedQuantity() throws Exception {
+        productBulkService.upsertProducts(stream("[{\"sku\": \"A\", \"name\": \"a\", \"price\": 1, \"quantity\": 10}]"));
+        Long id = productRepository.findAll().get(0).getId();
+        StockReservation reservation = reservationService.reserve(List.of(new ReservedItem(id, 3)), "order-service");
+
+        // Same stock on hand: 3 are still reserved, nothing to write
+        BulkUpsertSummary same = productBulkService.upsertProducts(stream("[{\"sku\": \"A\", \"name\": \"a\", \"price\": 1, \"quantity\": 10}]"));
+        assertThat(same.unchanged()).isEqualTo(1);
+        assertThat(productRepository.findById(id).orElseThrow().getQuantity()).isEqualTo(7);
+
+        productBulkService.upsertProducts(stream("[{\"sku\": \"A\", \"name\": \"a\", \"price\": 1, \"quantity\": 12}]"));
+        assertThat(productRepository.findById(id).orElseThrow().getQuantity()).isEqualTo(9);
+
+        // Released: the stock on hand of the feed again
+        reservationService.release(reservation.getId(), "order-service");
+        assertThat(productRepository.findById(id).orElseThrow().getQuantity()).isEqualTo(12);
+    }
+
+    @Test
+    void aSyncDuringAReservationWaitsForItAndKeepsItsStock() throws Exception {
+        productBulkService.upsertProducts(stream("[{\"sku\": \"A\", \"name\": \"a\", \"price\": 1, \"quantity\": 10}]"));
+        Long id = productRepository.findAll().get(0).getId();
+        CompletableFuture<BulkUpsertSummary> sync = new CompletableFuture<>();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            reservationService.reserve(List.of(new ReservedItem(id, 4)), "order-service");
+            // The sync reaches the product while the reservation is not committed: it waits for it
+            CompletableFuture.runAsync(() -> {
+                try {
+                    sync.complete(productBulkService.upsertProducts(
+                            stream("[{\"sku\": \"A\", \"name\": \"a\", \"price\": 1, \"quantity\": 10}]")));
+                } catch (Exception e) {
+                    sync.completeExceptionally(e);
+                }
+            });
+            assertThatThrownBy(() -> sync.get(500, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        });
+
+        assertThat(sync.get(10, TimeUnit.SECONDS).unchanged()).isEqualTo(1);
+        assertThat(productRepository.findById(id).orElseThrow().getQuantity()).isEqualTo(6);
+    }
+
+    private ProductBulkService singleRowChunks() {
+        return new ProductBulkService(jdbcTemplate, transactionManager, eventPublisher, objectMapper, 1);
+    }
+
+    private static InputStream catalog(int size, int repriced) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            double price = i < repriced ? 11 : 10;
+            json.append("{\"sku\":\"SKU-").append(i).append("\",\"name\":\"product ").append(i)
+                    .append("\",\"description\":\"\",\"price\":").append(price).append(",\"quantity\":5}");
+        }
+        return stream(json.append(']').toString());
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.produitservice.service;
+
+import org.example.produitservice.entitie.Product;
+import org.example.produitservice.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "pagination.max-page-size=3")
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        for (int i = 1; i <= 7; i++) {
+            productRepository.save(new Product(null, null, "product-" + i, "", 10 * i, 5, null));
+        }
+    }
+
+    @Test
+    void listingWalksTheCatalogPageByPage() {
+        List<String> names = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Product> page = productService.getAllProducts(cursor, 100);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(3);
+            page.items().forEach(product -> names.add(product.getName()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(names).containsExactly("product-1", "product-2", "product-3", "product-4",
+                "product-5", "product-6", "product-7");
+    }
+
+    @Test
+    void pageEtagChangesOnlyWhenAProductOfThePageChanges() {
+        String firstPage = productService.getPageEtag(null, 3);
+        String secondPage = productService.getPageEtag(productService.getAllProducts(null, 3).nextCursor(), 3);
+        assertThat(productService.getPageEtag(null, 3)).isEqualTo(firstPage);
+
+        Product onSecondPage = productRepository.findAll().stream()
+                .filter(product -> product.getName().equals("product-5"))
+                .findFirst().orElseThrow();
+        productService.updateProduct(onSecondPage.getId(), new Product(null, null, "renamed", "", 1, 1, null));
+
+        assertThat(productService.getPageEtag(null, 3)).isEqualTo(firstPage);
+        assertThat(productService.getPageEtag(productService.getAllProducts(null, 3).nextCursor(), 3))
+                .isNotEqualTo(secondPage);
+    }
+
+    @Test
+    void exportStreamsEveryProduct() {
+        List<String> names = new ArrayList<>();
+        productService.exportProducts(product -> names.add(product.getName()));
+
+        assertThat(names).hasSize(7).startsWith("product-1").endsWith("product-7");
+    }
+}
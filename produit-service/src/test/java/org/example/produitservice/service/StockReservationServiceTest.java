@@ -0,0 +1,154 @@
+package org.example.produitservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.produitservice.entitie.Product;
+import org.example.produitservice.entitie.ReservedItem;
+import org.example.produitservice.entitie.StockReservation;
+import org.example.produitservice.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class StockReservationServiceTest {
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product hot;
+    private Product other;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        hot = productRepository.save(new Product(null, null, "hot", "", 10, 50, null));
+        other = productRepository.save(new Product(null, null, "other", "", 5, 1, null));
+    }
+
+    @Test
+    void concurrentBuyersOfTheSameProductNeverOversell() throws Exception {
+        int buyers = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        double reservedBefore = reservations("reserved");
+        double outOfStockBefore = reservations("out_of_stock");
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    reservationService.reserve(List.of(new ReservedItem(hot.getId(), 1)), "order-service");
+                    reserved.incrementAndGet();
+                } catch (ResponseStatusException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(reserved.get()).isEqualTo(50);
+        assertThat(rejected.get()).isEqualTo(buyers - 50);
+        assertThat(productService.getProductById(hot.getId()).getQuantity()).isZero();
+        assertThat(reservations("reserved") - reservedBefore).isEqualTo(50);
+        assertThat(reservations("out_of_stock") - outOfStockBefore).isEqualTo(buyers - 50);
+    }
+
+    @Test
+    void reservationIsAllOrNothing() {
+        assertThatThrownBy(() -> reservationService.reserve(List.of(
+                new ReservedItem(hot.getId(), 2), new ReservedItem(other.getId(), 2)), "order-service"))
+                .isInstanceOf(ResponseStatusException.class);
+
+        assertThat(productService.getProductById(hot.getId()).getQuantity()).isEqualTo(50);
+        assertThat(productService.getProductById(other.getId()).getQuantity()).isEqualTo(1);
+    }
+
+    @Test
+    void releaseGivesStockBackOnceAndConfirmKeepsIt() {
+        StockReservation released = reservationService.reserve(List.of(new ReservedItem(hot.getId(), 5)), "order-service");
+        assertThat(productService.getProductById(hot.getId()).getQuantity()).isEqualTo(45);
+
+        reservationService.release(released.getId(), "order-service");
+        reservationService.release(released.getId(), "order-service");
+        assertThat(productService.getProductById(hot.getId()).getQuantity()).isEqualTo(50);
+        assertThatThrownBy(() -> reservationService.confirm(released.getId(), "order-service"))
+                .isInstanceOf(ResponseStatusException.class);
+
+        StockReservation confirmed = reservationService.reserve(List.of(new ReservedItem(hot.getId(), 5)), "order-service");
+        assertThat(reservationService.confirm(confirmed.getId(), "order-service").getStatus()).isEqualTo(StockReservation.CONFIRMED);
+        assertThat(productService.getProductById(hot.getId()).getQuantity()).isEqualTo(45);
+    }
+
+    @Test
+    void adminEditOfAStaleVersionIsRejected() {
+        Product edit = new Product(null, null, "hot", "edited", 12, 100, hot.getVersion());
+        reservationService.reserve(List.of(new ReservedItem(hot.getId(), 1)), "order-service");
+
+        assertThatThrownBy(() -> productService.updateProduct(hot.getId(), edit))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(productService.getProductById(hot.getId()).getQuantity()).isEqualTo(49);
+    }
+
+    @Test
+    void expiredReservationsAreReleasedOneByOne() {
+        StockReservation failing = reservationService.reserve(List.of(new ReservedItem(other.getId(), 1)), "order-service");
+        StockReservation expired = reservationService.reserve(List.of(new ReservedItem(hot.getId(), 5)), "order-service");
+        jdbcTemplate.update("update stock_reservation set expires_at = ? where id in (?, ?)",
+                new Date(System.currentTimeMillis() - 1000), failing.getId(), expired.getId());
+        double expiredBefore = reservations("expired");
+
+        // The stock of "other" cannot be given back: that release fails, the other one still goes through
+        jdbcTemplate.execute("alter table product add constraint ck_product_test check (name <> 'other' or quantity = 0)");
+        try {
+            reservationService.releaseExpired();
+        } finally {
+            jdbcTemplate.execute("alter table product drop constraint ck_product_test");
+        }
+
+        assertThat(reservationService.getReservation(expired.getId()).getStatus()).isEqualTo(StockReservation.RELEASED);
+        assertThat(productService.getProductById(hot.getId()).getQuantity()).isEqualTo(50);
+        assertThat(reservationService.getReservation(failing.getId()).getStatus()).isEqualTo(StockReservation.PENDING);
+        assertThat(reservations("expired") - expiredBefore).isEqualTo(1);
+    }
+
+    private double reservations(String outcome) {
+        return meterRegistry.get("stock.reservations").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.produitservice.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.produitservice.entitie.Product;
+import org.example.produitservice.repository.ProductRepository;
+import org.example.security.ServiceIdentitySigner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Reservations are order-service's business: buyers are refused, and a service only moves its own reservations
+@SpringBootTest
+@AutoConfigureMockMvc
+class StockReservationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${security.service-identity.secret}")
+    private String serviceSecret;
+
+    private String reservationBody;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        Product product = productRepository.save(new Product(null, null, "hot", "", 10, 5, null));
+        reservationBody = "{\"items\":[{\"productId\":" + product.getId() + ",\"quantity\":1}]}";
+    }
+
+    @Test
+    void buyersCannotReserveStockDirectly() throws Exception {
+        mockMvc.perform(post("/api/products/reservations").contentType(MediaType.APPLICATION_JSON).content(reservationBody)
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_CLIENT"), new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void onlyTheReservingServiceConfirmsOrReleases() throws Exception {
+        String response = mockMvc.perform(as("order-service", post("/api/products/reservations")
+                        .contentType(MediaType.APPLICATION_JSON).content(reservationBody)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(response).get("id").asText();
+
+        mockMvc.perform(as("another-service", post("/api/products/reservations/{id}/release", id)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(as("order-service", post("/api/products/reservations/{id}/confirm", id)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CONFIRMED"));
+    }
+
+    private MockHttpServletRequestBuilder as(String service, MockHttpServletRequestBuilder request) {
+        return request.header(ServiceIdentitySigner.HEADER, new ServiceIdentitySigner(service, serviceSecret).header());
+    }
+}
@@ -0,0 +1,12 @@
+-- db_product as ddl-auto=update created it at baseline, before the migrations: Product without sku nor version.
+-- Run on every connection to the test database (H2 INIT), hence "if not exists".
+create table if not exists product (
+    id          bigint generated by default as identity,
+    name        varchar(255),
+    description varchar(255),
+    price       float(53) not null,
+    quantity    integer not null,
+    primary key (id)
+);
+insert into product (name, description, price, quantity)
+    select 'Legacy', 'before the migrations', 10, 3 where not exists (select 1 from product where name = 'Legacy');
@@ -0,0 +1,110 @@
+package org.example.security;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWKS kept up to date by a background thread, so requests never wait for Keycloak when keys
+ * rotate on schedule. A token signed with a key still unknown triggers one synchronous reload,
+ * at most once per {@code minSyncInterval}.
+ */
+public class BackgroundRefreshJwkSource implements JWKSource<SecurityContext>, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(BackgroundRefreshJwkSource.class);
+    private final URL jwkSetUrl;
+    private final ResourceRetriever retriever;
+    private final long minSyncIntervalNanos;
+    private final ScheduledExecutorService scheduler;
+    private volatile JWKSet jwkSet;
+    private volatile long lastLoad;
+
+    public BackgroundRefreshJwkSource(String jwkSetUri, Duration refreshInterval) {
+        this(toUrl(jwkSetUri), refreshInterval, Duration.ofSeconds(10), new DefaultResourceRetriever(2000, 2000));
+    }
+
+    BackgroundRefreshJwkSource(URL jwkSetUrl, Duration refreshInterval, Duration minSyncInterval, ResourceRetriever retriever) {
+        this.jwkSetUrl = jwkSetUrl;
+        this.retriever = retriever;
+        this.minSyncIntervalNanos = minSyncInterval.toNanos();
+        this.lastLoad = System.nanoTime() - minSyncIntervalNanos;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static URL toUrl(String jwkSetUri) {
+        try {
+            return new URL(jwkSetUri);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid JWK Set URI: " + jwkSetUri, e);
+        }
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        JWKSet current = jwkSet;
+        if (current == null) {
+            current = reload(true);
+        }
+        List<JWK> keys = jwkSelector.select(current);
+        if (keys.isEmpty() && System.nanoTime() - lastLoad >= minSyncIntervalNanos) {
+            keys = jwkSelector.select(reload(false));
+        }
+        return keys;
+    }
+
+    public void refresh() throws KeySourceException {
+        reload(false);
+    }
+
+    private void refreshQuietly() {
+        try {
+            reload(false);
+        } catch (KeySourceException e) {
+            log.warn("JWKS refresh from {} failed, keeping the previous keys: {}", jwkSetUrl, e.getMessage());
+        }
+    }
+
+    private synchronized JWKSet reload(boolean onlyIfMissing) throws KeySourceException {
+        if (onlyIfMissing && jwkSet != null) {
+            return jwkSet;
+        }
+        try {
+            JWKSet loaded = JWKSet.parse(retriever.retrieveResource(jwkSetUrl).getContent());
+            jwkSet = loaded;
+            lastLoad = System.nanoTime();
+            return loaded;
+        } catch (IOException | ParseException e) {
+            lastLoad = System.nanoTime();
+            if (jwkSet != null) {
+                return jwkSet;
+            }
+            throw new KeySourceException("Couldn't retrieve JWKS from " + jwkSetUrl + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
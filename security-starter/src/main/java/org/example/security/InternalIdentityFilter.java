@@ -0,0 +1,134 @@
+package org.example.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authenticates requests carrying the identity the gateway already verified, instead of
+ * checking the Keycloak RSA signature again. The {@value #HEADER} header is
+ * {@code base64url(claims JSON) + "." + base64url(HMAC-SHA256)} with the secret shared by the
+ * gateway and the backends. Without a valid header the request goes through the usual JWT path.
+ * Another header can be checked with its own secret, e.g. the {@link ServiceIdentitySigner} identity
+ * of a service calling another one.
+ */
+public class InternalIdentityFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(InternalIdentityFilter.class);
+    public static final String HEADER = "X-Internal-Identity";
+    private static final String AUTHENTICATED = InternalIdentityFilter.class.getName() + ".AUTHENTICATED";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final String header;
+    private final SecretKeySpec key;
+    private final JwtAuthenticationConverter authenticationConverter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public InternalIdentityFilter(String secret, JwtAuthenticationConverter authenticationConverter) {
+        this(HEADER, secret, authenticationConverter);
+    }
+
+    public InternalIdentityFilter(String header, String secret, JwtAuthenticationConverter authenticationConverter) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < 32) {
+            throw new IllegalArgumentException("The secret of the " + header + " header must be at least 32 bytes");
+        }
+        this.header = header;
+        this.key = new SecretKeySpec(secretBytes, HMAC_ALGORITHM);
+        this.authenticationConverter = authenticationConverter;
+    }
+
+    // The bearer token is left alone once the internal identity authenticated the request
+    public static BearerTokenResolver bearerTokenResolver() {
+        DefaultBearerTokenResolver defaultResolver = new DefaultBearerTokenResolver();
+        return request -> request.getAttribute(AUTHENTICATED) != null ? null : defaultResolver.resolve(request);
+    }
+
+    // One "already filtered" flag per header: both filters can be in the same chain
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return InternalIdentityFilter.class.getName() + "." + header + ".FILTERED";
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String identity = request.getHeader(header);
+        if (identity != null) {
+            Jwt jwt = verify(identity);
+            if (jwt != null) {
+                // Same authorities mapping as a Keycloak token: controllers see a JwtAuthenticationToken
+                AbstractAuthenticationToken authentication = authenticationConverter.convert(jwt);
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+                request.setAttribute(AUTHENTICATED, Boolean.TRUE);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    Jwt verify(String identity) {
+        int dot = identity.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            String payload = identity.substring(0, dot);
+            byte[] signature = Base64.getUrlDecoder().decode(identity.substring(dot + 1));
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            if (!MessageDigest.isEqual(signature, mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)))) {
+                log.debug("Internal identity with an invalid signature ignored");
+                return null;
+            }
+
+            JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(payload));
+            Instant expiresAt = Instant.ofEpochSecond(claims.path("exp").asLong());
+            if (!Instant.now().isBefore(expiresAt)) {
+                log.debug("Expired internal identity ignored");
+                return null;
+            }
+
+            List<String> roles = new ArrayList<>();
+            claims.path("roles").forEach(role -> roles.add(role.asText()));
+            Jwt.Builder jwt = Jwt.withTokenValue(identity)
+                    .header("alg", "HS256")
+                    .subject(claims.path("sub").asText())
+                    .claim("preferred_username", claims.path("preferred_username").asText())
+                    .claim("realm_access", Map.of("roles", roles))
+                    .expiresAt(expiresAt);
+            if (claims.hasNonNull("scope")) {
+                jwt.claim("scope", claims.get("scope").asText());
+            }
+            return jwt.build();
+        } catch (IllegalArgumentException | IOException | GeneralSecurityException e) {
+            log.debug("Malformed internal identity ignored: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authorities of a Keycloak token: the standard scopes ({@code SCOPE_openid}...) plus the realm
+ * roles of {@code realm_access.roles} ({@code ["ADMIN"]} -> {@code ROLE_ADMIN}), without
+ * per-request allocations:
+ * <ul>
+ *     <li>the authorities of a token are kept while it is in use, keyed by the token value
+ *     (the frontend sends the same token for minutes)</li>
+ *     <li>tokens with the same scopes and roles share one immutable list, built once</li>
+ * </ul>
+ * The {@link JwtAuthenticationToken} is still created per request: the authentication provider
+ * writes the request details (remote address) into it.
+ */
+public class KeycloakAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>>, MeterBinder {
+    private static final String ROLE_PREFIX = "ROLE_";
+    // Distinct scopes/roles combinations, a handful in practice
+    private static final long MAXIMUM_CLAIM_SETS = 1_000;
+
+    // Stateless once configured: one instance for every token
+    private final JwtGrantedAuthoritiesConverter scopesConverter = new JwtGrantedAuthoritiesConverter();
+    private final Cache<String, List<GrantedAuthority>> byToken;
+    private final Cache<ClaimSet, List<GrantedAuthority>> byClaims;
+
+    public KeycloakAuthoritiesConverter(long maximumSize, Duration expireAfterAccess) {
+        this.byToken = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        this.byClaims = Caffeine.newBuilder().maximumSize(MAXIMUM_CLAIM_SETS).build();
+    }
+
+    @Override
+    public List<GrantedAuthority> convert(Jwt jwt) {
+        List<GrantedAuthority> authorities = byToken.getIfPresent(jwt.getTokenValue());
+        if (authorities == null) {
+            Map<String, Object> claims = jwt.getClaims();
+            ClaimSet claimSet = new ClaimSet(claims.get("scope"), claims.get("scp"), realmRoles(claims));
+            authorities = byClaims.get(claimSet, key -> authorities(jwt, key.roles()));
+            byToken.put(jwt.getTokenValue(), authorities);
+        }
+        return authorities;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byToken, "jwt-authorities");
+    }
+
+    private List<GrantedAuthority> authorities(Jwt jwt, Collection<?> roles) {
+        List<GrantedAuthority> authorities = new ArrayList<>(scopesConverter.convert(jwt));
+        for (Object role : roles) {
+            authorities.add(new SimpleGrantedAuthority(ROLE_PREFIX + role));
+        }
+        return List.copyOf(authorities);
+    }
+
+    private static Collection<?> realmRoles(Map<String, Object> claims) {
+        if (claims.get("realm_access") instanceof Map<?, ?> realmAccess
+                && realmAccess.get("roles") instanceof Collection<?> roles) {
+            return roles;
+        }
+        return List.of();
+    }
+
+    // Raw claim values (as parsed from the token), compared by value
+    private record ClaimSet(Object scope, Object scp, Collection<?> roles) {
+    }
+}
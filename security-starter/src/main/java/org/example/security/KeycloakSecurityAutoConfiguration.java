@@ -0,0 +1,87 @@
+package org.example.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.time.Duration;
+
+/**
+ * Keycloak resource server setup shared by the services:
+ * <ul>
+ *     <li>the realm roles mapping: a {@link JwtAuthenticationConverter} backed by
+ *     {@link KeycloakAuthoritiesConverter}, for the {@code SecurityConfig} of each service to plug
+ *     into {@code oauth2ResourceServer().jwt()}</li>
+ *     <li>the {@link JwtDecoder} of servlet applications: RS256 tokens checked against the Keycloak
+ *     keys of a {@link BackgroundRefreshJwkSource}, verified tokens kept by a {@link CachingJwtDecoder}</li>
+ * </ul>
+ * An application bean of any of these types wins. The {@link InternalIdentityFilter} is added by
+ * the {@code SecurityConfig} itself, when {@code security.internal-identity.enabled}.
+ */
+@AutoConfiguration(before = OAuth2ResourceServerAutoConfiguration.class)
+@ConditionalOnClass(JwtAuthenticationConverter.class)
+public class KeycloakSecurityAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public KeycloakAuthoritiesConverter keycloakAuthoritiesConverter(
+            @Value("${security.jwt.authorities.cache.maximum-size:10000}") long maximumSize,
+            @Value("${security.jwt.authorities.cache.expire-after-access:10m}") Duration expireAfterAccess) {
+        return new KeycloakAuthoritiesConverter(maximumSize, expireAfterAccess);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtAuthenticationConverter jwtAuthConverter(KeycloakAuthoritiesConverter authoritiesConverter) {
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return converter;
+    }
+
+    // Servlet resource servers only: the gateway verifies tokens with its own reactive decoder
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class JwtDecoderConfiguration {
+
+        // Keycloak keys reloaded in the background, not on the request path (ms-keycloak: reachable from the containers)
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean
+        public BackgroundRefreshJwkSource jwkSource(
+                @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri:http://ms-keycloak:9090/realms/mini-project/protocol/openid-connect/certs}") String jwkSetUri,
+                @Value("${security.jwt.jwks.refresh-interval:5m}") Duration refreshInterval) {
+            return new BackgroundRefreshJwkSource(jwkSetUri, refreshInterval);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(JwtDecoder.class)
+        public CachingJwtDecoder jwtDecoder(BackgroundRefreshJwkSource jwkSource,
+                                            @Value("${security.jwt.cache.maximum-size:10000}") long maximumSize,
+                                            ObjectProvider<ObservationRegistry> observationRegistry) {
+            // Same setup as NimbusJwtDecoder.withJwkSetUri(...), with our own key source; the issuer is
+            // not checked (tokens are issued on localhost, keys are fetched from ms-keycloak)
+            DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+            jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+            jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+            });
+
+            // Verified tokens are reused until they expire
+            CachingJwtDecoder decoder = new CachingJwtDecoder(new NimbusJwtDecoder(jwtProcessor), maximumSize);
+            decoder.setObservationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+            return decoder;
+        }
+    }
+}
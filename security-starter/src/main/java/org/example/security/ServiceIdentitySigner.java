@@ -0,0 +1,84 @@
+package org.example.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identity of a service calling another one on its own behalf, not on a user's: the
+ * {@value #HEADER} header, in the format of the gateway's X-Internal-Identity
+ * ({@code base64url(claims JSON) + "." + base64url(HMAC-SHA256)}) with the {@value #ROLE} realm role
+ * only. It is signed with {@code security.service-identity.secret}, which only the services know,
+ * and checked by an {@link InternalIdentityFilter} on that header. A signed header is reused until
+ * shortly before it expires.
+ */
+public class ServiceIdentitySigner {
+    public static final String HEADER = "X-Service-Identity";
+    public static final String ROLE = "SERVICE";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final Duration RENEW_BEFORE_EXPIRY = Duration.ofMinutes(1);
+
+    private final String serviceName;
+    private final SecretKeySpec key;
+    private final Clock clock;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile Signed current;
+
+    public ServiceIdentitySigner(String serviceName, String secret) {
+        this(serviceName, secret, Clock.systemUTC());
+    }
+
+    ServiceIdentitySigner(String serviceName, String secret, Clock clock) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < 32) {
+            throw new IllegalArgumentException("security.service-identity.secret must be at least 32 bytes");
+        }
+        this.serviceName = serviceName;
+        this.key = new SecretKeySpec(secretBytes, HMAC_ALGORITHM);
+        this.clock = clock;
+    }
+
+    public String header() {
+        Instant now = clock.instant();
+        Signed signed = current;
+        if (signed == null || !now.isBefore(signed.expiresAt().minus(RENEW_BEFORE_EXPIRY))) {
+            // Two threads may both renew it: same claims, either value is fine
+            signed = sign(now.plus(TIME_TO_LIVE));
+            current = signed;
+        }
+        return signed.value();
+    }
+
+    private Signed sign(Instant expiresAt) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", serviceName);
+        claims.put("preferred_username", serviceName);
+        claims.put("roles", List.of(ROLE));
+        claims.put("exp", expiresAt.getEpochSecond());
+
+        try {
+            String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(claims));
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+            return new Signed(payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature), expiresAt);
+        } catch (JsonProcessingException | GeneralSecurityException e) {
+            throw new IllegalStateException("Service identity could not be signed", e);
+        }
+    }
+
+    private record Signed(String value, Instant expiresAt) {
+    }
+}
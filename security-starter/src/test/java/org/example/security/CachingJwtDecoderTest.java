@@ -0,0 +1,145 @@
+package org.example.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs against a local JWKS stub standing in for ms-keycloak
+class CachingJwtDecoderTest {
+
+    private final AtomicReference<RSAKey> signingKey = new AtomicReference<>();
+    private final AtomicInteger jwksRequests = new AtomicInteger();
+    private HttpServer jwksStub;
+    private BackgroundRefreshJwkSource jwkSource;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signingKey.set(newKey("key-1"));
+        jwksStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        jwksStub.createContext("/certs", exchange -> {
+            jwksRequests.incrementAndGet();
+            byte[] body = new JWKSet(signingKey.get().toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        jwksStub.start();
+
+        String jwkSetUri = "http://localhost:" + jwksStub.getAddress().getPort() + "/certs";
+        jwkSource = new BackgroundRefreshJwkSource(jwkSetUri, Duration.ofHours(1));
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        decoder = new CachingJwtDecoder(new NimbusJwtDecoder(jwtProcessor), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jwkSource.close();
+        jwksStub.stop(0);
+    }
+
+    @Test
+    void sameTokenIsVerifiedOnlyOnce() throws Exception {
+        String token = sign(signingKey.get(), Instant.now().plusSeconds(300));
+
+        Jwt first = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(decoder.stats().hitCount()).isEqualTo(1);
+        assertThat(decoder.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void onlyCacheMissesAreTimed() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(registry));
+        decoder.setObservationRegistry(observationRegistry);
+        decoder.bindTo(registry);
+        String token = sign(signingKey.get(), Instant.now().plusSeconds(300));
+
+        decoder.decode(token);
+        decoder.decode(token);
+        decoder.decode(token);
+
+        assertThat(registry.get("security.jwt.verify").timer().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("cache", "jwt.decoder").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidTokenIsRejectedAndNotCached() throws Exception {
+        String forged = sign(newKey("key-1"), Instant.now().plusSeconds(300));
+
+        assertThatThrownBy(() -> decoder.decode(forged)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode(forged)).isInstanceOf(JwtException.class);
+        assertThat(decoder.stats().hitCount()).isZero();
+    }
+
+    @Test
+    void backgroundRefreshPicksUpRotatedKeys() throws Exception {
+        decoder.decode(sign(signingKey.get(), Instant.now().plusSeconds(300)));
+
+        signingKey.set(newKey("key-2"));
+        jwkSource.refresh();
+        int requestsBefore = jwksRequests.get();
+
+        Jwt jwt = decoder.decode(sign(signingKey.get(), Instant.now().plusSeconds(300)));
+
+        assertThat(jwt.getSubject()).isEqualTo("alice");
+        assertThat(jwksRequests.get()).isEqualTo(requestsBefore);
+    }
+
+    private static RSAKey newKey(String keyId) throws JOSEException {
+        return new RSAKeyGenerator(2048).keyID(keyId).generate();
+    }
+
+    private static String sign(RSAKey key, Instant expiresAt) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("alice")
+                .claim("preferred_username", "alice")
+                .issueTime(new Date())
+                .expirationTime(Date.from(expiresAt))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.security;
+
+import org.example.security.KeycloakAuthoritiesConverter;
+import org.example.security.KeycloakSecurityAutoConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InternalIdentityFilterTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final InternalIdentityFilter filter = new InternalIdentityFilter(SECRET,
+            new KeycloakSecurityAutoConfiguration().jwtAuthConverter(
+                    new KeycloakAuthoritiesConverter(100, Duration.ofMinutes(10))));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void signedIdentityAuthenticatesWithKeycloakRoles() throws Exception {
+        MockHttpServletRequest request = requestWith(sign(SECRET, Instant.now().plusSeconds(60)));
+        request.addHeader("Authorization", "Bearer original-token");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isInstanceOf(JwtAuthenticationToken.class);
+        assertThat(((JwtAuthenticationToken) authentication).getToken().getClaimAsString("preferred_username"))
+                .isEqualTo("alice");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).contains("ROLE_CLIENT");
+        assertThat(InternalIdentityFilter.bearerTokenResolver().resolve(request)).isNull();
+    }
+
+    @Test
+    void identitySignedWithAnotherKeyIsIgnored() throws Exception {
+        MockHttpServletRequest request = requestWith(sign("another-secret-another-secret-xx", Instant.now().plusSeconds(60)));
+        request.addHeader("Authorization", "Bearer original-token");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(InternalIdentityFilter.bearerTokenResolver().resolve(request)).isEqualTo("original-token");
+    }
+
+    @Test
+    void expiredIdentityIsIgnored() throws Exception {
+        filter.doFilter(requestWith(sign(SECRET, Instant.now().minusSeconds(1))), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void serviceIdentityIsCheckedWithItsOwnHeaderAndSecret() throws Exception {
+        String serviceSecret = "fedcba9876543210fedcba9876543210";
+        InternalIdentityFilter serviceFilter = new InternalIdentityFilter(ServiceIdentitySigner.HEADER, serviceSecret,
+                new KeycloakSecurityAutoConfiguration().jwtAuthConverter(
+                        new KeycloakAuthoritiesConverter(100, Duration.ofMinutes(10))));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/products/reservations");
+        request.addHeader(ServiceIdentitySigner.HEADER, new ServiceIdentitySigner("order-service", serviceSecret).header());
+
+        // Both filters in the same chain: the gateway one finds no header, the service one authenticates
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                serviceFilter.doFilter(req, res, new MockFilterChain()));
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getName()).isEqualTo("order-service");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_SERVICE");
+
+        // The gateway secret does not sign service identities
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest forged = new MockHttpServletRequest("POST", "/api/products/reservations");
+        forged.addHeader(ServiceIdentitySigner.HEADER, new ServiceIdentitySigner("order-service", SECRET).header());
+        serviceFilter.doFilter(forged, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private static MockHttpServletRequest requestWith(String identity) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/my-orders");
+        request.addHeader(InternalIdentityFilter.HEADER, identity);
+        return request;
+    }
+
+    // Same format as the gateway's InternalIdentitySigner
+    private static String sign(String secret, Instant expiresAt) throws Exception {
+        String claims = "{\"sub\":\"1234\",\"preferred_username\":\"alice\",\"roles\":[\"CLIENT\"],\"exp\":"
+                + expiresAt.getEpochSecond() + "}";
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeycloakAuthoritiesConverterTest {
+
+    private final KeycloakAuthoritiesConverter converter = new KeycloakAuthoritiesConverter(100, Duration.ofMinutes(10));
+
+    private static Jwt token(String value, String subject, List<String> roles) {
+        return Jwt.withTokenValue(value)
+                .header("alg", "RS256")
+                .subject(subject)
+                .claim("scope", "openid profile")
+                .claim("realm_access", Map.of("roles", roles))
+                .expiresAt(Instant.now().plusSeconds(300))
+                .build();
+    }
+
+    @Test
+    void scopesAndRealmRolesBecomeAuthorities() {
+        assertThat(converter.convert(token("t1", "alice", List.of("ADMIN", "CLIENT"))))
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("SCOPE_openid", "SCOPE_profile", "ROLE_ADMIN", "ROLE_CLIENT");
+        assertThat(converter.convert(Jwt.withTokenValue("t2").header("alg", "RS256").subject("bob").build()))
+                .isEmpty();
+    }
+
+    @Test
+    void tokensWithTheSameRolesShareOneAuthoritiesList() {
+        List<GrantedAuthority> alice = converter.convert(token("t1", "alice", List.of("CLIENT")));
+        List<GrantedAuthority> bob = converter.convert(token("t2", "bob", List.of("CLIENT")));
+        List<GrantedAuthority> admin = converter.convert(token("t3", "carol", List.of("ADMIN")));
+
+        assertThat(bob).isSameAs(alice);
+        assertThat(admin).isNotSameAs(alice);
+        // Same token again: answered from the per-token cache
+        assertThat(converter.convert(token("t1", "alice", List.of("CLIENT")))).isSameAs(alice);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        converter.bindTo(registry);
+        assertThat(registry.get("cache.gets").tag("cache", "jwt-authorities").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void autoConfigurationProvidesTheAuthenticationConverterUnlessTheApplicationHasOne() {
+        // "10m" -> Duration as in a Spring Boot application
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withInitializer(context -> context.getBeanFactory()
+                        .setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withConfiguration(AutoConfigurations.of(KeycloakSecurityAutoConfiguration.class));
+
+        runner.run(context -> {
+            AbstractAuthenticationToken authentication = context.getBean(JwtAuthenticationConverter.class)
+                    .convert(token("t1", "alice", List.of("CLIENT")));
+            assertThat(authentication.getName()).isEqualTo("alice");
+            assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).contains("ROLE_CLIENT");
+        });
+        runner.withBean("jwtAuthConverter", JwtAuthenticationConverter.class, JwtAuthenticationConverter::new)
+                .run(context -> assertThat(context.getBean(JwtAuthenticationConverter.class)
+                        .convert(token("t1", "alice", List.of("CLIENT"))).getAuthorities())
+                        .extracting(GrantedAuthority::getAuthority).doesNotContain("ROLE_CLIENT"));
+    }
+
+    @Test
+    void autoConfigurationProvidesTheJwtDecoderToServletApplicationsOnly() {
+        String jwkSetUri = "spring.security.oauth2.resourceserver.jwt.jwk-set-uri=http://localhost:1/certs";
+        new WebApplicationContextRunner()
+                .withInitializer(context -> context.getBeanFactory()
+                        .setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withConfiguration(AutoConfigurations.of(KeycloakSecurityAutoConfiguration.class))
+                .withPropertyValues(jwkSetUri)
+                .run(context -> assertThat(context).getBean(JwtDecoder.class).isInstanceOf(CachingJwtDecoder.class));
+        new ReactiveWebApplicationContextRunner()
+                .withInitializer(context -> context.getBeanFactory()
+                        .setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withConfiguration(AutoConfigurations.of(KeycloakSecurityAutoConfiguration.class))
+                .withPropertyValues(jwkSetUri)
+                .run(context -> assertThat(context).doesNotHaveBean(JwtDecoder.class)
+                        .doesNotHaveBean(BackgroundRefreshJwkSource.class));
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.tracing;
+
+import io.micrometer.observation.transport.ReceiverContext;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.handler.PropagatingReceiverTracingObservationHandler;
+import io.micrometer.tracing.propagation.Propagator;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Boot's handler for incoming requests (parent taken from the traceparent header), which also sets
+ * the request path on the server span before it starts: the sampler only sees what the span has
+ * at that point, and {@link RouteSampler} decides on the path.
+ */
+public class RequestPathTracingHandler extends PropagatingReceiverTracingObservationHandler<ReceiverContext<?>> {
+
+    public RequestPathTracingHandler(Tracer tracer, Propagator propagator) {
+        super(tracer, propagator);
+    }
+
+    @Override
+    public Span.Builder customizeExtractedSpan(ReceiverContext<?> context, Span.Builder builder) {
+        if (context.getCarrier() instanceof HttpServletRequest request) {
+            builder.tag(RouteSampler.URL_PATH.getKey(), request.getRequestURI());
+        }
+        return builder;
+    }
+}
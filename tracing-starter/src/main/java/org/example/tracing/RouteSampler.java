@@ -0,0 +1,69 @@
+package org.example.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sampling of the traces starting in a service, by route: the first {@code pattern=probability}
+ * rule matching the request path wins, other requests use the default probability. Meant to be
+ * wrapped in {@link Sampler#parentBased}, so a trace coming with a sampling decision keeps it.
+ */
+public class RouteSampler implements Sampler {
+    // Set on server spans when they start by RequestPathTracingHandler (the gateway's own, reactive, too)
+    public static final AttributeKey<String> URL_PATH = AttributeKey.stringKey("url.path");
+
+    private final Map<PathPattern, Sampler> routes = new LinkedHashMap<>();
+    private final Sampler defaultSampler;
+
+    // e.g. "/api/orders/**=1.0", "/api/orders/product-cache/**=0"
+    public RouteSampler(double defaultProbability, List<String> rules) {
+        this.defaultSampler = Sampler.traceIdRatioBased(defaultProbability);
+        for (String rule : rules) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            int separator = rule.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected pattern=probability, got " + rule);
+            }
+            routes.put(PathPatternParser.defaultInstance.parse(rule.substring(0, separator).trim()),
+                    Sampler.traceIdRatioBased(Double.parseDouble(rule.substring(separator + 1).trim())));
+        }
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        return samplerFor(attributes.get(URL_PATH))
+                .shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    }
+
+    private Sampler samplerFor(String path) {
+        if (path != null) {
+            PathContainer container = PathContainer.parsePath(path);
+            for (Map.Entry<PathPattern, Sampler> route : routes.entrySet()) {
+                if (route.getKey().matches(container)) {
+                    return route.getValue();
+                }
+            }
+        }
+        return defaultSampler;
+    }
+
+    @Override
+    public String getDescription() {
+        return "RouteSampler{routes=" + routes + ", default=" + defaultSampler.getDescription() + "}";
+    }
+}
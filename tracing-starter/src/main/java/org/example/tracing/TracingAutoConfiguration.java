@@ -0,0 +1,70 @@
+package org.example.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.ConditionalOnEnabledTracing;
+import org.springframework.boot.actuate.autoconfigure.tracing.MicrometerTracingAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.tracing.OpenTelemetryAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * W3C tracing of the services: spans are exported by OTLP ({@code management.otlp.tracing.endpoint})
+ * and/or to a local file ({@code tracing.exporter.file.path}), new traces are sampled per route
+ * ({@code tracing.sampling.routes}). On servlet applications the trace context also follows the
+ * work handed to the task executor. An application {@link Sampler} wins (the gateway has its own).
+ */
+@AutoConfiguration(before = {OpenTelemetryAutoConfiguration.class, MicrometerTracingAutoConfiguration.class})
+@ConditionalOnClass({Sampler.class, Tracer.class})
+public class TracingAutoConfiguration {
+
+    // Traces started here are sampled per route, the others follow the caller's decision
+    @Bean
+    @ConditionalOnMissingBean
+    public Sampler routeSampler(@Value("${management.tracing.sampling.probability:0.1}") double defaultProbability,
+                                @Value("${tracing.sampling.routes:}") List<String> routes) {
+        return Sampler.parentBased(new RouteSampler(defaultProbability, routes));
+    }
+
+    // The path is read at startup, not as a bean condition: AOT images would fix it at build time
+    @Bean
+    @ConditionalOnEnabledTracing
+    public SpanExporter fileSpanExporter(@Value("${tracing.exporter.file.path:}") String path,
+                                         ObjectProvider<ObjectMapper> objectMapper) throws IOException {
+        return path.isBlank() ? SpanExporter.composite() : new FileSpanExporter(Path.of(path), objectMapper.getObject());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ServletTracingConfiguration {
+
+        // Replaces Boot's handler of incoming requests, at the same place in the handler chain
+        @Bean
+        @Order(MicrometerTracingAutoConfiguration.RECEIVER_TRACING_OBSERVATION_HANDLER_ORDER)
+        public RequestPathTracingHandler requestPathTracingHandler(Tracer tracer, Propagator propagator) {
+            return new RequestPathTracingHandler(tracer, propagator);
+        }
+
+        // Work fanned out on the task executor (product lookups, change notifications) stays in the request's trace
+        @Bean
+        @ConditionalOnMissingBean
+        public ContextPropagatingTaskDecorator contextPropagatingTaskDecorator() {
+            return new ContextPropagatingTaskDecorator();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteSamplerTest {
+
+    private final Sampler sampler = Sampler.parentBased(new RouteSampler(0.0,
+            List.of("/api/orders/product-cache/**=0", "/api/orders/**=1.0")));
+
+    @Test
+    void newTracesAreSampledByTheFirstMatchingRoute() {
+        assertThat(decision(Context.root(), "/api/orders/42"))
+                .isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+        assertThat(decision(Context.root(), "/api/orders/product-cache/invalidations"))
+                .isEqualTo(SamplingDecision.DROP);
+        // Default probability: no matching route, or not an incoming HTTP request
+        assertThat(decision(Context.root(), "/actuator/prometheus"))
+                .isEqualTo(SamplingDecision.DROP);
+        assertThat(decision(Context.root(), null)).isEqualTo(SamplingDecision.DROP);
+    }
+
+    @Test
+    void tracesStartedUpstreamKeepTheirDecision() {
+        assertThat(decision(remoteParent(TraceFlags.getSampled()), "/actuator/prometheus"))
+                .isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+        assertThat(decision(remoteParent(TraceFlags.getDefault()), "/api/orders/42"))
+                .isEqualTo(SamplingDecision.DROP);
+    }
+
+    @Test
+    void malformedRuleIsRejected() {
+        assertThatThrownBy(() -> new RouteSampler(0.1, List.of("/api/orders/**")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SamplingDecision decision(Context parent, String path) {
+        Attributes attributes = path != null ? Attributes.of(RouteSampler.URL_PATH, path) : Attributes.empty();
+        return sampler.shouldSample(parent, IdGenerator.random().generateTraceId(), "http post", SpanKind.SERVER,
+                attributes, List.of()).getDecision();
+    }
+
+    private static Context remoteParent(TraceFlags flags) {
+        SpanContext parent = SpanContext.createFromRemoteParent(IdGenerator.random().generateTraceId(),
+                IdGenerator.random().generateSpanId(), flags, TraceState.getDefault());
+        return Context.root().with(Span.wrap(parent));
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracingAutoConfigurationTest {
+
+    private final AutoConfigurations tracing = AutoConfigurations.of(TracingAutoConfiguration.class);
+
+    @Test
+    void routeSamplerIsUsedUnlessTheApplicationHasASampler() {
+        new ApplicationContextRunner()
+                .withConfiguration(tracing)
+                .withPropertyValues("tracing.sampling.routes=/api/orders/**=1.0")
+                .run(context -> assertThat(context.getBean(Sampler.class).getDescription())
+                        .startsWith("ParentBased{root:RouteSampler{"));
+        new ApplicationContextRunner()
+                .withConfiguration(tracing)
+                .withBean("gatewaySampler", Sampler.class, Sampler::alwaysOff)
+                .run(context -> assertThat(context.getBean(Sampler.class)).isSameAs(Sampler.alwaysOff()));
+    }
+
+    @Test
+    void spansGoToAFileOnlyWhenAPathIsSet(@TempDir Path directory) {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withConfiguration(tracing)
+                .withBean(ObjectMapper.class);
+
+        runner.run(context -> assertThat(context.getBean("fileSpanExporter")).isNotInstanceOf(FileSpanExporter.class));
+        runner.withPropertyValues("tracing.exporter.file.path=" + directory.resolve("spans.jsonl"))
+                .run(context -> assertThat(context.getBean("fileSpanExporter")).isInstanceOf(FileSpanExporter.class));
+    }
+
+    @Test
+    void requestHandlerAndTaskContextPropagationAreForServletApplicationsOnly() {
+        new WebApplicationContextRunner()
+                .withConfiguration(tracing)
+                .withBean(Tracer.class, () -> Tracer.NOOP)
+                .withBean(Propagator.class, () -> Propagator.NOOP)
+                .run(context -> assertThat(context).hasSingleBean(RequestPathTracingHandler.class)
+                        .hasSingleBean(ContextPropagatingTaskDecorator.class));
+        new ReactiveWebApplicationContextRunner()
+                .withConfiguration(tracing)
+                .run(context -> assertThat(context).doesNotHaveBean(RequestPathTracingHandler.class)
+                        .doesNotHaveBean(ContextPropagatingTaskDecorator.class));
+    }
+}